@@ -104,6 +104,11 @@ public class ClientCallbackImpl extends UnicastRemoteObject implements IClientCa
     public void receiveChatMessage(String formattedMessage) throws RemoteException {
         SwingUtilities.invokeLater(() -> gameFrame.addChatMessage(formattedMessage));
     }
+
+    @Override
+    public void ping() throws RemoteException {
+        // Nada a fazer: retornar já confirma ao servidor que o cliente está vivo.
+    }
     
     // Lógica de UI de fim de jogo (reutilizada de ServerListener)
     private void handleGameEnd(String message, String title, int messageType) {
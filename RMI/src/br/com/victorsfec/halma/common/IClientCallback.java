@@ -53,4 +53,7 @@ public interface IClientCallback extends Remote {
 
     // Substitui Protocol.CHAT_MESSAGE
     void receiveChatMessage(String formattedMessage) throws RemoteException;
+
+    // Heartbeat do servidor (Protocol.PING); basta retornar. Um cliente que não retorna a tempo é desconectado.
+    void ping() throws RemoteException;
 }
\ No newline at end of file
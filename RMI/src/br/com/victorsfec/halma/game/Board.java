@@ -1,77 +1,138 @@
 package br.com.victorsfec.halma.game;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.awt.Point;
 
-// A classe Board representa o tabuleiro do jogo.
+/**
+ * A classe Board representa o tabuleiro do jogo.
+ * O estado é guardado em máscaras de ocupação de 100 bits por jogador (bitboards),
+ * divididas em dois longs: as casas 0..63 ficam em "lo" e as casas 64..99 em "hi".
+ * A casa (row, col) corresponde ao bit row * SIZE + col.
+ * A geração de movimentos percorre as tabelas de vizinhança de BoardTables.
+ */
 public class Board {
     // Define o tamanho do tabuleiro (10x10).
     public static final int SIZE = 10;
-    // Uma matriz 2D para armazenar as peças no tabuleiro.
-    private final Piece[][] grid;
+    // Quantidade total de casas do tabuleiro.
+    public static final int SQUARES = SIZE * SIZE;
+    // Número máximo de destinos de uma peça: 8 passos simples mais 8 saltos.
+    public static final int MAX_MOVES = 16;
+    // Marca casas ausentes nos arrays de índices (por exemplo, destinos não alcançados).
+    public static final int NO_SQUARE = -1;
+
+    // Tamanho padrão do campo: triângulo de 5 casas de lado (15 peças por jogador).
+    public static final int DEFAULT_CAMP_SIZE = 5;
+
+    // As peças são imutáveis, então o tabuleiro reutiliza uma instância por jogador.
+    private static final Piece[] PIECES = { null, new Piece(1), new Piece(2) };
+
+    // Chaves de Zobrist: um número aleatório de 64 bits por (jogador, casa), com semente fixa
+    // para que o mesmo tabuleiro tenha o mesmo hash em qualquer execução.
+    private static final long[][] ZOBRIST_KEYS = new long[3][SQUARES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x48414C4D41L);
+        for (int player = 1; player <= 2; player++) {
+            for (int sq = 0; sq < SQUARES; sq++) {
+                ZOBRIST_KEYS[player][sq] = random.nextLong();
+            }
+        }
+    }
+
+    // Máscaras de ocupação por jogador (o índice 0 não é usado).
+    private final long[] occupiedLo = new long[3];
+    private final long[] occupiedHi = new long[3];
+
+    // Lado do triângulo de cada campo e quantidade de peças por jogador.
+    private final int campSize;
+    private final int piecesPerPlayer;
+    // Campos iniciais de cada jogador (índice 1 e 2).
+    private final long[] campLo = new long[3];
+    private final long[] campHi = new long[3];
+    // Para cada casa, o jogador que precisa ocupá-la para vencer (0 se não pertence a nenhum campo).
+    private final byte[] goalOwner = new byte[SQUARES];
+    // Contadores incrementais de peças de cada jogador dentro do campo do oponente.
+    private final int[] piecesInGoal = new int[3];
+    // Hash de Zobrist da posição, atualizado incrementalmente por place/remove.
+    private long zobristHash;
+    // Pilha de desfazer: cada entrada é um movimento compactado (packMove) mais o dono da casa de destino,
+    // caso ela estivesse ocupada, nos bits 14-15.
+    private int[] history = new int[64];
+    private int historySize;
 
     public Board() {
-        grid = new Piece[SIZE][SIZE];
-        setupPieces(); // Chama o método para posicionar as peças iniciais.
+        this(DEFAULT_CAMP_SIZE);
         //setupAlmostWinningStateForPlayer1(); //caso de teste para verificar o campeão
     }
-    
+
+    /**
+     * Cria um tabuleiro com campos triangulares de outro tamanho.
+     * @param campSize Lado do triângulo de cada campo (5 no jogo padrão, com 15 peças).
+     */
+    public Board(int campSize) {
+        if (campSize < 1 || campSize >= SIZE) {
+            throw new IllegalArgumentException("Tamanho de campo inválido: " + campSize);
+        }
+        this.campSize = campSize;
+        this.piecesPerPlayer = campSize * (campSize + 1) / 2;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                // O campo é o triângulo em cada canto (row + col < campSize).
+                if (row + col < campSize) {
+                    int sq1 = square(row, col);
+                    int sq2 = square(SIZE - 1 - row, SIZE - 1 - col);
+                    campLo[1] |= bitLo(sq1);
+                    campHi[1] |= bitHi(sq1);
+                    campLo[2] |= bitLo(sq2);
+                    campHi[2] |= bitHi(sq2);
+                    goalOwner[sq1] = 2;
+                    goalOwner[sq2] = 1;
+                }
+            }
+        }
+        setupPieces(); // Chama o método para posicionar as peças iniciais.
+    }
+
+    // Cria uma cópia independente de outro tabuleiro (usada pela busca do bot). A pilha de desfazer começa vazia.
+    public Board(Board other) {
+        this.campSize = other.campSize;
+        this.piecesPerPlayer = other.piecesPerPlayer;
+        System.arraycopy(other.campLo, 0, campLo, 0, campLo.length);
+        System.arraycopy(other.campHi, 0, campHi, 0, campHi.length);
+        System.arraycopy(other.goalOwner, 0, goalOwner, 0, goalOwner.length);
+        System.arraycopy(other.occupiedLo, 0, occupiedLo, 0, occupiedLo.length);
+        System.arraycopy(other.occupiedHi, 0, occupiedHi, 0, occupiedHi.length);
+        System.arraycopy(other.piecesInGoal, 0, piecesInGoal, 0, piecesInGoal.length);
+        this.zobristHash = other.zobristHash;
+    }
+
     //Caso de teste, para dá a vitória ao player
     /*
      private void setupAlmostWinningStateForPlayer1() {
         // Posiciona 14 das 15 peças do Jogador 1 na zona de vitória (canto inferior direito).
-        grid[9][9] = new Piece(1);
-        grid[9][8] = new Piece(1);
-        grid[9][7] = new Piece(1);
-        grid[9][6] = new Piece(1);
-        grid[9][5] = new Piece(1);
-        grid[8][9] = new Piece(1);
-        grid[8][8] = new Piece(1);
-        grid[8][7] = new Piece(1);
-        grid[8][6] = new Piece(1);
-        grid[7][9] = new Piece(1);
-        grid[7][8] = new Piece(1);
-        grid[7][7] = new Piece(1);
-        grid[6][9] = new Piece(1);
-        grid[6][8] = new Piece(1);
-        // O espaço em grid[5][9] é intencionalmente deixado vazio para a jogada final.
+        place(square(9, 9), 1); place(square(9, 8), 1); place(square(9, 7), 1); place(square(9, 6), 1); place(square(9, 5), 1);
+        place(square(8, 9), 1); place(square(8, 8), 1); place(square(8, 7), 1); place(square(8, 6), 1);
+        place(square(7, 9), 1); place(square(7, 8), 1); place(square(7, 7), 1);
+        place(square(6, 9), 1); place(square(6, 8), 1);
+        // O espaço em (5,9) é intencionalmente deixado vazio para a jogada final.
 
         // Posiciona a 15ª peça do Jogador 1 em (5,8), adjacente ao espaço da vitória.
-        grid[5][8] = new Piece(1);
+        place(square(5, 8), 1);
 
         // Posiciona as 15 peças do Jogador 2 de forma espalhada pelo tabuleiro.
-        grid[2][5] = new Piece(2);
-        grid[3][3] = new Piece(2);
-        grid[4][6] = new Piece(2);
-        grid[1][8] = new Piece(2);
-        grid[0][7] = new Piece(2);
-        grid[7][0] = new Piece(2);
-        grid[6][2] = new Piece(2);
-        grid[8][3] = new Piece(2);
-        grid[7][5] = new Piece(2);
-        grid[9][0] = new Piece(2);
-        grid[9][2] = new Piece(2);
-        grid[8][1] = new Piece(2);
-        grid[7][1] = new Piece(2);
-        grid[6][7] = new Piece(2);
-        grid[5][5] = new Piece(2);
+        place(square(2, 5), 2); place(square(3, 3), 2); place(square(4, 6), 2); place(square(1, 8), 2); place(square(0, 7), 2);
+        place(square(7, 0), 2); place(square(6, 2), 2); place(square(8, 3), 2); place(square(7, 5), 2); place(square(9, 0), 2);
+        place(square(9, 2), 2); place(square(8, 1), 2); place(square(7, 1), 2); place(square(6, 7), 2); place(square(5, 5), 2);
     } */
 
     private void setupPieces() {
-        // Posiciona as 15 peças do Jogador 1 no canto superior esquerdo.
-        grid[0][0] = new Piece(1); grid[0][1] = new Piece(1); grid[0][2] = new Piece(1); grid[0][3] = new Piece(1); grid[0][4] = new Piece(1);
-        grid[1][0] = new Piece(1); grid[1][1] = new Piece(1); grid[1][2] = new Piece(1); grid[1][3] = new Piece(1);
-        grid[2][0] = new Piece(1); grid[2][1] = new Piece(1); grid[2][2] = new Piece(1);
-        grid[3][0] = new Piece(1); grid[3][1] = new Piece(1);
-        grid[4][0] = new Piece(1);
-
-        // Posiciona as 15 peças do Jogador 2 no canto inferior direito.
-        grid[SIZE - 1][SIZE - 1] = new Piece(2); grid[SIZE - 1][SIZE - 2] = new Piece(2); grid[SIZE - 1][SIZE - 3] = new Piece(2); grid[SIZE - 1][SIZE - 4] = new Piece(2); grid[SIZE - 1][SIZE - 5] = new Piece(2);
-        grid[SIZE - 2][SIZE - 1] = new Piece(2); grid[SIZE - 2][SIZE - 2] = new Piece(2); grid[SIZE - 2][SIZE - 3] = new Piece(2); grid[SIZE - 2][SIZE - 4] = new Piece(2);
-        grid[SIZE - 3][SIZE - 1] = new Piece(2); grid[SIZE - 3][SIZE - 2] = new Piece(2); grid[SIZE - 3][SIZE - 3] = new Piece(2);
-        grid[SIZE - 4][SIZE - 1] = new Piece(2); grid[SIZE - 4][SIZE - 2] = new Piece(2);
-        grid[SIZE - 5][SIZE - 1] = new Piece(2);
+        // Jogador 1 começa no canto superior esquerdo e o Jogador 2 no canto inferior direito.
+        for (int sq = 0; sq < SQUARES; sq++) {
+            if (goalOwner[sq] != 0) place(sq, 3 - goalOwner[sq]);
+        }
     }
 
     /**
@@ -83,122 +144,352 @@ public class Board {
      * @return Uma lista de pontos (coordenadas) para onde a peça pode se mover.
      */
     public List<Point> getValidMoves(int startRow, int startCol, boolean inChainJump) {
-        List<Point> validMoves = new ArrayList<>();
-        Piece piece = getPieceAt(startRow, startCol);
-        if (piece == null) {
-            return validMoves; // Se não há peça na posição, retorna a lista vazia.
+        int[] moves = new int[MAX_MOVES];
+        int count = getValidMoves(startRow, startCol, inChainJump, moves);
+        List<Point> validMoves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            validMoves.add(new Point(rowOf(moves[i]), colOf(moves[i])));
         }
+        return validMoves;
+    }
+
+    /**
+     * Versão sem alocação de getValidMoves: escreve os destinos no array informado
+     * pelo chamador, cada um como o índice da casa (row * SIZE + col).
+     * @param startRow Linha da peça.
+     * @param startCol Coluna da peça.
+     * @param inChainJump Indica se o jogador está no meio de um salto em cadeia.
+     * @param moves Array de saída, com pelo menos MAX_MOVES posições.
+     * @return A quantidade de destinos escritos em moves.
+     */
+    public int getValidMoves(int startRow, int startCol, boolean inChainJump, int[] moves) {
+        if (getPieceAt(startRow, startCol) == null) {
+            return 0; // Se não há peça na posição, não há destinos.
+        }
+
+        int square = square(startRow, startCol);
+        int count = 0;
 
         // 1. Adiciona movimentos de 1 casa se não estiver em um salto em cadeia.
         if (!inChainJump) {
-            for (int r = -1; r <= 1; r++) {
-                for (int c = -1; c <= 1; c++) {
-                    if (r == 0 && c == 0) continue; // Pula a própria posição.
-                    int destRow = startRow + r;
-                    int destCol = startCol + c;
-                    if (isSingleStepValid(destRow, destCol)) {
-                        validMoves.add(new Point(destRow, destCol));
-                    }
-                }
+            for (int target : BoardTables.stepTargets(square)) {
+                if (!isOccupied(target)) moves[count++] = target;
             }
         }
-        
-        // 2. Adiciona movimentos de salto.
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
 
-                int jumpedPieceRow = startRow + dr; // Posição da peça a ser pulada.
-                int jumpedPieceCol = startCol + dc;
-                int landingRow = startRow + dr * 2; // Posição de destino após o salto.
-                int landingCol = startCol + dc * 2;
-
-                if (isJumpValid(jumpedPieceRow, jumpedPieceCol, landingRow, landingCol)) {
-                    validMoves.add(new Point(landingRow, landingCol));
-                }
-            }
+        // 2. Adiciona movimentos de salto: casa intermediária ocupada e casa final vazia.
+        int[] overs = BoardTables.jumpOvers(square);
+        int[] landings = BoardTables.jumpLandings(square);
+        for (int i = 0; i < overs.length; i++) {
+            if (isOccupied(overs[i]) && !isOccupied(landings[i])) moves[count++] = landings[i];
         }
+        return count;
+    }
 
-        return validMoves;
+    // Converte uma coordenada no índice da casa usado pelos métodos sem alocação.
+    public static int square(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    // Linha de um índice de casa.
+    public static int rowOf(int square) {
+        return square / SIZE;
     }
-    
-     // Verifica se um movimento de uma única casa é válido, se o destino está vazio e dentro do tabuleiro.
-    private boolean isSingleStepValid(int endRow, int endCol) {
-        return isValidCoordinate(endRow, endCol) && grid[endRow][endCol] == null;
+
+    // Coluna de um índice de casa.
+    public static int colOf(int square) {
+        return square % SIZE;
     }
-    
-    // Verifica se um salto é válido, casa intermediária ocupada e casa final vazia.
-    private boolean isJumpValid(int jumpedRow, int jumpedCol, int landingRow, int landingCol) {
-        return isValidCoordinate(landingRow, landingCol) && 
-               grid[landingRow][landingCol] == null &&
-               isValidCoordinate(jumpedRow, jumpedCol) && 
-               grid[jumpedRow][jumpedCol] != null;
+
+    // Verifica se o destino é alcançável pela peça com um passo simples ou um salto.
+    private boolean isValidTarget(int square, int target, boolean inChainJump) {
+        if (isOccupied(target)) return false;
+        if (!inChainJump) {
+            for (int step : BoardTables.stepTargets(square)) {
+                if (step == target) return true;
+            }
+        }
+        int[] overs = BoardTables.jumpOvers(square);
+        int[] landings = BoardTables.jumpLandings(square);
+        for (int i = 0; i < overs.length; i++) {
+            if (landings[i] == target) return isOccupied(overs[i]);
+        }
+        return false;
     }
 
     // Tenta mover uma peça. Se true, a movimentação está certa
     public boolean movePiece(int startRow, int startCol, int endRow, int endCol, int player, boolean inChainJump) {
         Piece piece = getPieceAt(startRow, startCol);
-        if (piece == null || piece.getPlayerId() != player) {
+        if (piece == null || piece.getPlayerId() != player || !isValidCoordinate(endRow, endCol)) {
             return false;
         }
-        
-        // Obtém a lista de movimentos válidos para a peça.
-        List<Point> validMoves = getValidMoves(startRow, startCol, inChainJump);
-        
-        // Verifica se uma peça pode realizar um salto a partir de sua posição atual.
-        for (Point move : validMoves) {
-            if (move.x == endRow && move.y == endCol) {
-                performMove(startRow, startCol, endRow, endCol);
-                return true;
-            }
+
+        // Verifica o destino diretamente nas tabelas de vizinhança, sem alocar listas.
+        boolean isValid = isValidTarget(square(startRow, startCol), square(endRow, endCol), inChainJump);
+        if (isValid) {
+            makeMove(square(startRow, startCol), square(endRow, endCol));
         }
+        return isValid;
+    }
 
-        return false;
+    // Compacta um movimento em um int: origem nos bits 0-6 e destino nos bits 7-13.
+    public static int packMove(int from, int to) {
+        return from | to << 7;
+    }
+
+    // Casa de origem de um movimento compactado.
+    public static int moveFrom(int move) {
+        return move & 0x7F;
+    }
+
+    // Casa de destino de um movimento compactado.
+    public static int moveTo(int move) {
+        return (move >>> 7) & 0x7F;
+    }
+
+    // Move a peça de uma casa para outra e empilha o movimento para unmakeMove.
+    // Não verifica as regras: quem chama (busca ou movePiece) já garante que o movimento é legal.
+    // Um salto em cadeia inteiro pode ser feito com um único makeMove da origem ao pouso final.
+    public void makeMove(int from, int to) {
+        if (historySize == history.length) history = Arrays.copyOf(history, historySize * 2);
+        int displaced = ownerOf(to);
+        history[historySize++] = packMove(from, to) | displaced << 14;
+        int player = ownerOf(from);
+        remove(from);
+        remove(to);
+        place(to, player);
+    }
+
+    // Desfaz o último movimento empilhado, restaurando máscaras, contadores e hash exatamente.
+    // Retorna o movimento desfeito (packMove) ou NO_SQUARE se a pilha estiver vazia.
+    public int unmakeMove() {
+        if (historySize == 0) return NO_SQUARE;
+        int entry = history[--historySize];
+        int from = moveFrom(entry);
+        int to = moveTo(entry);
+        int player = ownerOf(to);
+        remove(to);
+        place(from, player);
+        int displaced = entry >>> 14;
+        if (displaced != 0) place(to, displaced);
+        return entry & 0x3FFF;
+    }
+
+    // Desfaz o último turno completo: os saltos de uma cadeia são desfeitos juntos.
+    // Dois movimentos seguidos pertencem ao mesmo turno quando o segundo parte de onde o primeiro parou,
+    // já que os jogadores alternam e a casa de pouso só pode ter a peça de quem acabou de jogar.
+    // Retorna quantos movimentos foram desfeitos.
+    public int unmakeTurn() {
+        int undone = 0;
+        while (historySize > 0) {
+            int from = moveFrom(history[historySize - 1]);
+            unmakeMove();
+            undone++;
+            if (historySize == 0 || moveTo(history[historySize - 1]) != from) break;
+        }
+        return undone;
+    }
+
+    // Quantidade de movimentos na pilha de desfazer.
+    public int getHistorySize() {
+        return historySize;
     }
 
     // Verifica se uma peça pode realizar um salto a partir de sua posição atual.
     public boolean canJumpFrom(int row, int col) {
         if (getPieceAt(row, col) == null) return false;
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-                if (isJumpValid(row + dr, col + dc, row + dr * 2, col + dc * 2)) {
-                    return true;
+        int square = square(row, col);
+        int[] overs = BoardTables.jumpOvers(square);
+        int[] landings = BoardTables.jumpLandings(square);
+        for (int i = 0; i < overs.length; i++) {
+            if (isOccupied(overs[i]) && !isOccupied(landings[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calcula todas as casas alcançáveis pela peça com qualquer sequência de saltos (busca em largura
+     * sobre as casas de pouso). A casa de origem é tratada como vazia durante a cadeia, como acontece
+     * quando os saltos são feitos um a um.
+     * @param row Linha da peça.
+     * @param col Coluna da peça.
+     * @param targets Array de saída com os destinos alcançáveis, com pelo menos SQUARES posições.
+     * @param parents Array de saída com SQUARES posições: para cada destino, a casa de onde partiu o último salto
+     *                (NO_SQUARE para casas não alcançadas). Use tracePath para reconstruir o caminho.
+     * @return A quantidade de destinos escritos em targets.
+     */
+    public int getChainJumpTargets(int row, int col, int[] targets, int[] parents) {
+        Arrays.fill(parents, 0, SQUARES, NO_SQUARE);
+        if (getPieceAt(row, col) == null) return 0;
+
+        int start = square(row, col);
+        int player = ownerOf(start);
+        remove(start); // A peça sai da origem enquanto salta.
+        parents[start] = start;
+
+        // A própria lista de destinos serve de fila da busca em largura.
+        int count = 0;
+        int head = -1;
+        int current = start;
+        do {
+            int[] overs = BoardTables.jumpOvers(current);
+            int[] landings = BoardTables.jumpLandings(current);
+            for (int i = 0; i < overs.length; i++) {
+                int landing = landings[i];
+                if (parents[landing] == NO_SQUARE && isOccupied(overs[i]) && !isOccupied(landing)) {
+                    parents[landing] = current;
+                    targets[count++] = landing;
                 }
             }
+            head++;
+            current = head < count ? targets[head] : -1;
+        } while (current >= 0);
+
+        place(start, player);
+        parents[start] = NO_SQUARE;
+        return count;
+    }
+
+    /**
+     * Reconstrói o caminho de saltos até um destino calculado por getChainJumpTargets.
+     * @param parents O array preenchido por getChainJumpTargets.
+     * @param target A casa de destino.
+     * @param path Array de saída com as casas de pouso em ordem (sem a origem).
+     * @return O número de saltos do caminho, ou 0 se o destino não é alcançável.
+     */
+    public static int tracePath(int[] parents, int target, int[] path) {
+        int length = 0;
+        for (int sq = target; parents[sq] != NO_SQUARE; sq = parents[sq]) {
+            length++; // A origem não tem pai, então a contagem para nela.
         }
-        return false;
+        int sq = target;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = sq;
+            sq = parents[sq];
+        }
+        return length;
     }
 
     // Retorna a peça em uma determinada coordenada.
     public Piece getPieceAt(int row, int col) {
-        if (isValidCoordinate(row, col)) return grid[row][col];
-        return null;
+        if (!isValidCoordinate(row, col)) return null;
+        return PIECES[ownerOf(square(row, col))];
     }
 
-    // Atualiza a matriz com as peças do tabuleiro
+    // Atualiza as máscaras com as peças do tabuleiro
     public void performMove(int startRow, int startCol, int endRow, int endCol) {
-        if (getPieceAt(startRow, startCol) == null) return;
-        Piece piece = grid[startRow][startCol];
-        grid[startRow][startCol] = null;
-        grid[endRow][endCol] = piece;
+        if (getPieceAt(startRow, startCol) == null || !isValidCoordinate(endRow, endCol)) return;
+        int player = ownerOf(square(startRow, startCol));
+        remove(square(startRow, startCol));
+        remove(square(endRow, endCol));
+        place(square(endRow, endCol), player);
     }
 
     // Verifica se uma coordenada está dentro dos limites do tabuleiro.
     private boolean isValidCoordinate(int row, int col) {
         return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
     }
-    
+
     // Verifica se um jogador venceu a partida
     public boolean checkForWinner(int player) {
-        // Verifica se todas as posições do campo do jogador 2 estão ocupadas por peças do jogador 1.
-        if (player == 1) {
-            if (getPieceAt(SIZE-1, SIZE-1) == null || getPieceAt(SIZE-1, SIZE-1).getPlayerId() != 1) return false; if (getPieceAt(SIZE-1, SIZE-2) == null || getPieceAt(SIZE-1, SIZE-2).getPlayerId() != 1) return false; if (getPieceAt(SIZE-1, SIZE-3) == null || getPieceAt(SIZE-1, SIZE-3).getPlayerId() != 1) return false; if (getPieceAt(SIZE-1, SIZE-4) == null || getPieceAt(SIZE-1, SIZE-4).getPlayerId() != 1) return false; if (getPieceAt(SIZE-1, SIZE-5) == null || getPieceAt(SIZE-1, SIZE-5).getPlayerId() != 1) return false; if (getPieceAt(SIZE-2, SIZE-1) == null || getPieceAt(SIZE-2, SIZE-1).getPlayerId() != 1) return false; if (getPieceAt(SIZE-2, SIZE-2) == null || getPieceAt(SIZE-2, SIZE-2).getPlayerId() != 1) return false; if (getPieceAt(SIZE-2, SIZE-3) == null || getPieceAt(SIZE-2, SIZE-3).getPlayerId() != 1) return false; if (getPieceAt(SIZE-2, SIZE-4) == null || getPieceAt(SIZE-2, SIZE-4).getPlayerId() != 1) return false; if (getPieceAt(SIZE-3, SIZE-1) == null || getPieceAt(SIZE-3, SIZE-1).getPlayerId() != 1) return false; if (getPieceAt(SIZE-3, SIZE-2) == null || getPieceAt(SIZE-3, SIZE-2).getPlayerId() != 1) return false; if (getPieceAt(SIZE-3, SIZE-3) == null || getPieceAt(SIZE-3, SIZE-3).getPlayerId() != 1) return false; if (getPieceAt(SIZE-4, SIZE-1) == null || getPieceAt(SIZE-4, SIZE-1).getPlayerId() != 1) return false; if (getPieceAt(SIZE-4, SIZE-2) == null || getPieceAt(SIZE-4, SIZE-2).getPlayerId() != 1) return false; if (getPieceAt(SIZE-5, SIZE-1) == null || getPieceAt(SIZE-5, SIZE-1).getPlayerId() != 1) return false;
-            return true;
-        } else {
-            // Verifica se todas as posições do campo do jogador 1 estão ocupadas por peças do jogador 2.
-            if (getPieceAt(0, 0) == null || getPieceAt(0, 0).getPlayerId() != 2) return false; if (getPieceAt(0, 1) == null || getPieceAt(0, 1).getPlayerId() != 2) return false; if (getPieceAt(0, 2) == null || getPieceAt(0, 2).getPlayerId() != 2) return false; if (getPieceAt(0, 3) == null || getPieceAt(0, 3).getPlayerId() != 2) return false; if (getPieceAt(0, 4) == null || getPieceAt(0, 4).getPlayerId() != 2) return false; if (getPieceAt(1, 0) == null || getPieceAt(1, 0).getPlayerId() != 2) return false; if (getPieceAt(1, 1) == null || getPieceAt(1, 1).getPlayerId() != 2) return false; if (getPieceAt(1, 2) == null || getPieceAt(1, 2).getPlayerId() != 2) return false; if (getPieceAt(1, 3) == null || getPieceAt(1, 3).getPlayerId() != 2) return false; if (getPieceAt(2, 0) == null || getPieceAt(2, 0).getPlayerId() != 2) return false; if (getPieceAt(2, 1) == null || getPieceAt(2, 1).getPlayerId() != 2) return false; if (getPieceAt(2, 2) == null || getPieceAt(2, 2).getPlayerId() != 2) return false; if (getPieceAt(3, 0) == null || getPieceAt(3, 0).getPlayerId() != 2) return false; if (getPieceAt(3, 1) == null || getPieceAt(3, 1).getPlayerId() != 2) return false; if (getPieceAt(4, 0) == null || getPieceAt(4, 0).getPlayerId() != 2) return false;
-            return true;
+        // O jogador vence quando todas as casas do campo do oponente estão ocupadas por suas peças.
+        // O contador é mantido por place/remove, então a verificação é O(1).
+        return piecesInGoal[player] == piecesPerPlayer;
+    }
+
+    // Quantas peças do jogador já estão no campo do oponente.
+    public int getPiecesInGoal(int player) {
+        return piecesInGoal[player];
+    }
+
+    // Lado do triângulo de cada campo.
+    public int getCampSize() {
+        return campSize;
+    }
+
+    // Quantidade de peças de cada jogador.
+    public int getPiecesPerPlayer() {
+        return piecesPerPlayer;
+    }
+
+    // Hash de Zobrist de 64 bits que identifica a posição (não inclui de quem é o turno).
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    // Dois tabuleiros são iguais se têm as mesmas peças nas mesmas casas; o hash descarta rapidamente os diferentes.
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Board)) return false;
+        Board other = (Board) obj;
+        return zobristHash == other.zobristHash
+                && campSize == other.campSize
+                && Arrays.equals(occupiedLo, other.occupiedLo)
+                && Arrays.equals(occupiedHi, other.occupiedHi);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristHash);
+    }
+
+    // Retorna o dono da casa (1 ou 2), ou 0 se estiver vazia.
+    private int ownerOf(int square) {
+        if (square < 64) {
+            long bit = bitLo(square);
+            return (occupiedLo[1] & bit) != 0 ? 1 : (occupiedLo[2] & bit) != 0 ? 2 : 0;
+        }
+        long bit = bitHi(square);
+        return (occupiedHi[1] & bit) != 0 ? 1 : (occupiedHi[2] & bit) != 0 ? 2 : 0;
+    }
+
+    /**
+     * Escreve os índices das casas ocupadas pelo jogador, sem alocação.
+     * @param player O jogador (1 ou 2).
+     * @param squares Array de saída, com pelo menos getPiecesPerPlayer() posições.
+     * @return A quantidade de casas escritas.
+     */
+    public int getPieceSquares(int player, int[] squares) {
+        int count = 0;
+        for (long bits = occupiedLo[player]; bits != 0; bits &= bits - 1) {
+            squares[count++] = Long.numberOfTrailingZeros(bits);
+        }
+        for (long bits = occupiedHi[player]; bits != 0; bits &= bits - 1) {
+            squares[count++] = 64 + Long.numberOfTrailingZeros(bits);
         }
+        return count;
+    }
+
+    // Verifica se a casa está ocupada por qualquer jogador.
+    public boolean isOccupied(int square) {
+        if (square < 64) return ((occupiedLo[1] | occupiedLo[2]) & (1L << square)) != 0;
+        return ((occupiedHi[1] | occupiedHi[2]) & (1L << (square - 64))) != 0;
+    }
+
+    private void place(int square, int player) {
+        occupiedLo[player] |= bitLo(square);
+        occupiedHi[player] |= bitHi(square);
+        if (goalOwner[square] == player) piecesInGoal[player]++;
+        zobristHash ^= ZOBRIST_KEYS[player][square];
+    }
+
+    private void remove(int square) {
+        int player = ownerOf(square);
+        if (player == 0) return;
+        occupiedLo[player] &= ~bitLo(square);
+        occupiedHi[player] &= ~bitHi(square);
+        if (goalOwner[square] == player) piecesInGoal[player]--;
+        zobristHash ^= ZOBRIST_KEYS[player][square];
+    }
+
+    // Bit da casa na parte baixa (0 se a casa estiver na parte alta).
+    private static long bitLo(int square) {
+        return square < 64 ? 1L << square : 0L;
+    }
+
+    // Bit da casa na parte alta (0 se a casa estiver na parte baixa).
+    private static long bitHi(int square) {
+        return square >= 64 ? 1L << (square - 64) : 0L;
     }
-}
\ No newline at end of file
+}
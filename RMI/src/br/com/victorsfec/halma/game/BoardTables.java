@@ -0,0 +1,67 @@
+package br.com.victorsfec.halma.game;
+
+import java.util.Arrays;
+
+/**
+ * Tabelas pré-calculadas da geometria do tabuleiro 10x10.
+ * Para cada casa (índice row * SIZE + col) guarda os destinos de um passo
+ * e os pares (casa pulada, casa de pouso) dos saltos que ficam dentro do tabuleiro,
+ * de modo que a geração de movimentos seja uma varredura de arrays sem verificação de limites.
+ * Os arrays retornados são compartilhados e não devem ser modificados.
+ */
+public final class BoardTables {
+    private static final int[][] STEP_TARGETS = new int[Board.SQUARES][];
+    private static final int[][] JUMP_OVERS = new int[Board.SQUARES][];
+    private static final int[][] JUMP_LANDINGS = new int[Board.SQUARES][];
+
+    static {
+        int[] steps = new int[8];
+        int[] overs = new int[8];
+        int[] landings = new int[8];
+        for (int row = 0; row < Board.SIZE; row++) {
+            for (int col = 0; col < Board.SIZE; col++) {
+                int stepCount = 0;
+                int jumpCount = 0;
+                // Percorre as 8 direções na mesma ordem usada pelo tabuleiro original.
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        if (dr == 0 && dc == 0) continue;
+                        if (isOnBoard(row + dr, col + dc)) {
+                            steps[stepCount++] = Board.square(row + dr, col + dc);
+                        }
+                        if (isOnBoard(row + dr * 2, col + dc * 2)) {
+                            overs[jumpCount] = Board.square(row + dr, col + dc);
+                            landings[jumpCount++] = Board.square(row + dr * 2, col + dc * 2);
+                        }
+                    }
+                }
+                int square = Board.square(row, col);
+                STEP_TARGETS[square] = Arrays.copyOf(steps, stepCount);
+                JUMP_OVERS[square] = Arrays.copyOf(overs, jumpCount);
+                JUMP_LANDINGS[square] = Arrays.copyOf(landings, jumpCount);
+            }
+        }
+    }
+
+    private BoardTables() {
+    }
+
+    // Casas vizinhas (destinos de um passo) de uma casa.
+    public static int[] stepTargets(int square) {
+        return STEP_TARGETS[square];
+    }
+
+    // Casas puladas pelos saltos a partir de uma casa; o pouso correspondente está no mesmo índice de jumpLandings.
+    public static int[] jumpOvers(int square) {
+        return JUMP_OVERS[square];
+    }
+
+    // Casas de pouso dos saltos a partir de uma casa.
+    public static int[] jumpLandings(int square) {
+        return JUMP_LANDINGS[square];
+    }
+
+    private static boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < Board.SIZE && col >= 0 && col < Board.SIZE;
+    }
+}
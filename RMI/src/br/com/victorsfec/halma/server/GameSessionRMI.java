@@ -4,18 +4,52 @@ import br.com.victorsfec.halma.common.IClientCallback;
 import br.com.victorsfec.halma.common.IGameSession;
 import br.com.victorsfec.halma.game.Board; // Lógica do tabuleiro reutilizada
 import java.awt.Point;
+import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
  // Esta classe substitui GameSession e ClientHandler.
  // Ela implementa a interface do jogo (IGameSession) para o cliente chamar.
  // Ela armazena os stubs de callback (IClientCallback) para chamar o cliente.
- // Ela implementa Runnable para ser iniciada em uma thread.
+ // Ela implementa Runnable: run() é a primeira mensagem da sua caixa de mensagens (boas-vindas).
+ // As chamadas remotas só entregam mensagens à caixa e retornam; a lógica roda uma mensagem por vez,
+ // sem lock, e os callbacks gerados saem depois, pela saída de cada jogador.
+ // Um heartbeat no timer compartilhado chama ping() nos clientes e desconecta quem não retorna a tempo;
+ // depois do fim da partida, a sessão deixa de ser exportada.
 public class GameSessionRMI extends UnicastRemoteObject implements IGameSession, Runnable {
 
+    // Executor compartilhado que drena as caixas de mensagens de todas as sessões (só transições de estado).
+    private static final ExecutorService scheduler = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), Thread.ofPlatform().name("halma-session-", 0).daemon().factory());
+    // Executor das saídas: um callback para um cliente travado prende uma thread daqui até o timeout do RMI,
+    // sem tirar threads das sessões nem das saídas dos outros jogadores.
+    private static final ExecutorService callbacks = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("halma-callback-", 0).daemon().factory());
+
+    // Timer compartilhado pelos heartbeats e pela limpeza de todas as sessões.
+    private static final HashedWheelTimer timer = new HashedWheelTimer("halma-timer", 100, 512);
+    // Tempo entre o fim da partida e o unexport, para os últimos callbacks e chamadas dos clientes.
+    private static final long CLEANUP_DELAY_MILLIS = 5_000;
+
+    // Intervalo dos pings e tempo sem resposta a um ping até desconectar (0 ou negativo desliga; sem pings
+    // o limite também fica desligado); ver configureHeartbeat.
+    private static volatile long heartbeatIntervalMillis = 10_000;
+    private static volatile long idleTimeoutMillis = 30_000;
+
+    // Uma chamada de callback a ser feita em um jogador.
+    private interface Callback {
+        void invoke(IClientCallback player) throws RemoteException;
+    }
+
+    // O heartbeat; a saída reconhece a instância para registrar a resposta.
+    private static final Callback PING = IClientCallback::ping;
+
     // Stubs para "chamar de volta" os clientes
     private final IClientCallback player1;
     private final IClientCallback player2;
@@ -36,6 +70,11 @@ public class GameSessionRMI extends UnicastRemoteObject implements IGameSession,
     private String player1Name;
     private String player2Name;
 
+    // Caixa de mensagens da sessão; ao fim de cada lote, libera as saídas dos dois jogadores.
+    private final transient Mailbox mailbox;
+    private final transient Outbox outbox1;
+    private final transient Outbox outbox2;
+
     public GameSessionRMI(WaitingPlayer p1, WaitingPlayer p2) throws RemoteException {
         super();
         this.player1 = p1.callback;
@@ -44,143 +83,201 @@ public class GameSessionRMI extends UnicastRemoteObject implements IGameSession,
         this.player2Name = p2.name;
         this.board = new Board(); // Reutiliza a lógica do tabuleiro
         this.currentPlayer = 1;
+        this.outbox1 = new Outbox(player1);
+        this.outbox2 = new Outbox(player2);
+        this.mailbox = new Mailbox(scheduler, () -> {
+            outbox1.flush();
+            outbox2.flush();
+        });
+    }
+
+    // Define o heartbeat de todas as sessões (--heartbeat-interval e --idle-timeout).
+    static void configureHeartbeat(long intervalMillis, long idleMillis) {
+        heartbeatIntervalMillis = intervalMillis;
+        idleTimeoutMillis = idleMillis;
+    }
+
+    // Inicia a partida no executor das sessões, sem uma thread própria.
+    public void start() {
+        mailbox.post(this);
+        scheduleHeartbeat();
     }
 
     @Override
     public void run() {
-        try {
-            // Lógica de verificação de nome (reutilizada)
-            if (player1Name.equals(player2Name)) {
-                player1Name += " (1)";
-                player2Name += " (2)";
-            }
+        // Lógica de verificação de nome (reutilizada)
+        if (player1Name.equals(player2Name)) {
+            player1Name += " (1)";
+            player2Name += " (2)";
+        }
 
-            // Exporta este objeto (a sessão) e envia o stub aos clientes
-            // O "this" é o stub da sessão de jogo que os clientes usarão
-            player1.startGame(this, 1, player1Name, player2Name);
-            player2.startGame(this, 2, player2Name, player1Name);
+        // Exporta este objeto (a sessão) e envia o stub aos clientes
+        // O "this" é o stub da sessão de jogo que os clientes usarão
+        // Se um jogador não puder ser avisado, a saída dele informa a desconexão.
+        String name1 = player1Name;
+        String name2 = player2Name;
+        send(player1, p -> p.startGame(this, 1, name1, name2));
+        send(player2, p -> p.startGame(this, 2, name2, name1));
 
-            updateTurn(); // Envia a primeira mensagem de turno
-        } catch (RemoteException e) {
-            System.err.println("Erro ao iniciar GameSessionRMI. Um jogador pode ter desconectado.");
-            // Se falhar ao iniciar, ambos os jogadores são desconectados
-            handleDisconnect(null); 
-        }
+        updateTurn(); // Envia a primeira mensagem de turno
     }
-    
+
     // --- Implementação da Interface IGameSession (Ações do Cliente) ---
-    // A lógica de 'processMessage' é dividida aqui
+    // A lógica de 'processMessage' é dividida aqui; cada método só entrega a mensagem à caixa da sessão.
 
     @Override
-    public synchronized void sendMove(int playerId, int startRow, int startCol, int endRow, int endCol) throws RemoteException {
-        if (gameEnded) return;
-        IClientCallback sender = (playerId == 1) ? player1 : player2;
-        
-        try {
+    public void sendMove(int playerId, int startRow, int startCol, int endRow, int endCol) throws RemoteException {
+        // Rastreio das chamadas remotas; sem custo quando desligado.
+        if (Log.isEnabled(Log.Category.PROTOCOL, Log.Level.DEBUG)) {
+            Log.debug(Log.Category.PROTOCOL, "CLIENT " + playerId + " -> sendMove " + startRow + ":" + startCol + " " + endRow + ":" + endCol);
+        }
+        mailbox.post(() -> {
+            if (gameEnded) return;
             if (playerId != currentPlayer) {
-                sender.receiveError("Não é o seu turno.");
+                send(playerId == 1 ? player1 : player2, p -> p.receiveError("Não é o seu turno."));
                 return;
             }
             // Chama a lógica de movimento (copiada de handleMove)
             handleMoveLogic(playerId, startRow, startCol, endRow, endCol);
-            
-        } catch (RemoteException e) {
-            // Se a chamada RMI falhar (ex: sender.receiveError), o cliente caiu
-            handleDisconnect(sender);
-        }
+        });
     }
 
     @Override
-    public synchronized void sendChatMessage(int playerId, String message) throws RemoteException {
-        if (gameEnded) return;
-        String senderName = (playerId == 1) ? player1Name : player2Name;
-        String formattedMessage = senderName + ": " + message;
-        
-        chatHistory.add(formattedMessage);
-        broadcastChat(formattedMessage); // Chama o método auxiliar refatorado
+    public void sendChatMessage(int playerId, String message) throws RemoteException {
+        mailbox.post(() -> {
+            if (gameEnded) return;
+            String senderName = (playerId == 1) ? player1Name : player2Name;
+            String formattedMessage = senderName + ": " + message;
+
+            chatHistory.add(formattedMessage);
+            broadcastChat(formattedMessage); // Chama o método auxiliar refatorado
+        });
     }
 
     @Override
-    public synchronized void sendForfeit(int playerId) throws RemoteException {
-        if (gameEnded) return;
-        System.out.println("SERVER: Recebido pedido de desistência do " + (playerId == 1 ? player1Name : player2Name));
-        handleForfeit((playerId == 1) ? player1 : player2);
+    public void sendForfeit(int playerId) throws RemoteException {
+        mailbox.post(() -> {
+            if (gameEnded) return;
+            Log.info(Log.Category.SESSION, "SERVER: Recebido pedido de desistência do " + (playerId == 1 ? player1Name : player2Name));
+            handleForfeit((playerId == 1) ? player1 : player2);
+        });
     }
 
     @Override
-public synchronized void sendEndChainJump(int playerId) throws RemoteException {
-    if (gameEnded) return;
-    if (!isChainJumpActive || playerId != currentPlayer) return;
-
-    isChainJumpActive = false;
-    if (board.checkForWinner(currentPlayer)) {
-        String winnerName = (currentPlayer == 1) ? player1Name : player2Name;
-        winnerInfo = winnerName + " ganhou por chegar no destino!";
-        endGame((playerId == 1) ? player1 : player2, (playerId == 1) ? player2 : player1, "VICTORY", "DEFEAT");
-    } else {
-        switchTurn();
+    public void sendEndChainJump(int playerId) throws RemoteException {
+        mailbox.post(() -> {
+            if (gameEnded) return;
+            if (!isChainJumpActive || playerId != currentPlayer) return;
+
+            isChainJumpActive = false;
+            if (board.checkForWinner(currentPlayer)) {
+                String winnerName = (currentPlayer == 1) ? player1Name : player2Name;
+                winnerInfo = winnerName + " ganhou por chegar no destino!";
+                endGame((playerId == 1) ? player1 : player2, (playerId == 1) ? player2 : player1, "VICTORY", "DEFEAT");
+            } else {
+                switchTurn();
+            }
+        });
     }
-}
 
     @Override
-    public synchronized void sendGetValidMoves(int playerId, int row, int col) throws RemoteException {
-        if (gameEnded || playerId != currentPlayer) return;
-        IClientCallback sender = (playerId == 1) ? player1 : player2;
-        try {
+    public void sendGetValidMoves(int playerId, int row, int col) throws RemoteException {
+        mailbox.post(() -> {
+            if (gameEnded || playerId != currentPlayer) return;
             List<Point> moves = board.getValidMoves(row, col, isChainJumpActive);
-            sender.receiveValidMovesList(moves);
-        } catch (RemoteException e) {
-            handleDisconnect(sender);
+            send(playerId == 1 ? player1 : player2, p -> p.receiveValidMovesList(moves));
+        });
+    }
+
+    // --- Heartbeat e Limpeza ---
+
+    // A verificação só roda com os pings ligados, no menor período entre o ping e o limite de inatividade.
+    private void scheduleHeartbeat() {
+        long interval = heartbeatIntervalMillis;
+        long idleTimeout = idleTimeoutMillis;
+        if (interval <= 0) return;
+        timer.schedule(() -> mailbox.post(this::heartbeat), idleTimeout > 0 ? Math.min(interval, idleTimeout) : interval);
+    }
+
+    // Roda na caixa da sessão: desconecta um jogador cujo último ping terminou há mais que o limite e pinga de novo.
+    // Callbacks que dão certo não contam: um cliente travado em um deles também não completa o ping seguinte.
+    private void heartbeat() {
+        if (gameEnded) return;
+        long idleTimeout = idleTimeoutMillis;
+        for (Outbox outbox : new Outbox[] { outbox1, outbox2 }) {
+            long idle = outbox.idleMillis();
+            if (idleTimeout > 0 && idle >= idleTimeout) {
+                // O callback pendente pode estar travado em um cliente que não responde; a saída é abandonada.
+                outbox.failed = true;
+                Log.warn(Log.Category.SESSION, "Cliente " + (outbox == outbox1 ? player1Name : player2Name) + " não responde há " + idle + " ms. Desconectando.");
+                handleDisconnect(outbox.player);
+                return;
+            }
+            // Um ping por vez: enquanto o anterior não termina, a espera já conta contra o limite.
+            if (idle >= heartbeatIntervalMillis && !outbox.pingInFlight) {
+                outbox.pingInFlight = true;
+                outbox.add(PING);
+            }
         }
+        scheduleHeartbeat();
+    }
+
+    // Marca o fim da partida e agenda o unexport da sessão, que libera o objeto remoto e os stubs dos jogadores.
+    private void finish() {
+        gameEnded = true;
+        timer.schedule(() -> {
+            try {
+                UnicastRemoteObject.unexportObject(this, true);
+            } catch (NoSuchObjectException e) {
+                // Já não estava exportada.
+            }
+        }, CLEANUP_DELAY_MILLIS);
     }
 
     // --- Métodos Auxiliares (Lógica de Jogo e Callbacks) ---
     // (A maioria é copiada de GameSession.java e adaptada para RMI)
 
     /**
-     * Lida com a desconexão de um jogador.
+     * Lida com a desconexão de um jogador (chamado pela caixa de mensagens quando um callback falha).
      * @param disconnectedPlayer O callback do jogador que desconectou, ou null se for um erro geral.
      */
-    public synchronized void handleDisconnect(IClientCallback disconnectedPlayer) {
+    private void handleDisconnect(IClientCallback disconnectedPlayer) {
         if (gameEnded) return;
-        gameEnded = true;
-        System.out.println("SERVER: Jogador desconectado.");
-        
+        finish();
+        Log.info(Log.Category.SESSION, "SERVER: Jogador desconectado.");
+
         IClientCallback winner = (disconnectedPlayer == player1) ? player2 : player1;
         IClientCallback loser = (disconnectedPlayer == player1) ? player1 : player2;
 
         if (winner == null || loser == null) {
             // Erro antes do jogo começar ou ambos caíram
-            System.out.println("SERVER: Desconexão antes do jogo ou ambos caíram.");
+            Log.info(Log.Category.SESSION, "SERVER: Desconexão antes do jogo ou ambos caíram.");
             return;
         }
 
-        try {
-            winnerInfo = (winner == player1 ? player1Name : player2Name) + " ganhou por desconexão do oponente.";
-            sendGameOverStats(); // Envia estatísticas primeiro
-            winner.notifyOpponentForfeit("Seu oponente desconectou. Você ganhou!");
-        } catch (RemoteException e) {
-            // O vencedor também já caiu, não há o que fazer.
-            System.err.println("O jogador vencedor também desconectou.");
-        }
+        Ratings.recordWin(winner == player1 ? player1Name : player2Name, loser == player1 ? player1Name : player2Name);
+
+        winnerInfo = (winner == player1 ? player1Name : player2Name) + " ganhou por desconexão do oponente.";
+        sendGameOverStats(); // Envia estatísticas primeiro
+        send(winner, p -> p.notifyOpponentForfeit("Seu oponente desconectou. Você ganhou!"));
     }
-    
+
     private void handleForfeit(IClientCallback forfeiter) {
         if (gameEnded) return;
-        
+
         IClientCallback winner = (forfeiter == player1) ? player2 : player1;
         winnerInfo = (winner == player1 ? player1Name : player2Name) + " ganhou pela desistência do oponente.";
-        
+
         endGame(winner, forfeiter, "OPPONENT_FORFEIT", "DEFEAT");
     }
 
     // Lógica principal de movimento, adaptada de handleMove
-    private void handleMoveLogic(int senderId, int startRow, int startCol, int endRow, int endCol) throws RemoteException {
+    private void handleMoveLogic(int senderId, int startRow, int startCol, int endRow, int endCol) {
         IClientCallback sender = (senderId == 1) ? player1 : player2;
         IClientCallback opponent = (senderId == 1) ? player2 : player1;
 
         if (isChainJumpActive && (startRow != chainJumpRow || startCol != chainJumpCol)) {
-            sender.receiveError("Você deve continuar pulando com a mesma peça.");
+            send(sender, p -> p.receiveError("Você deve continuar pulando com a mesma peça."));
             return;
         }
 
@@ -194,14 +291,14 @@ public synchronized void sendEndChainJump(int playerId) throws RemoteException {
                 isChainJumpActive = true;
                 chainJumpRow = endRow;
                 chainJumpCol = endCol;
-                sender.receiveJumpMove(startRow, startCol, endRow, endCol);
-                opponent.receiveMove(startRow, startCol, endRow, endCol); // Oponente vê como um movimento normal
-                sender.offerChainJump(endRow, endCol);
+                send(sender, p -> p.receiveJumpMove(startRow, startCol, endRow, endCol));
+                send(opponent, p -> p.receiveMove(startRow, startCol, endRow, endCol)); // Oponente vê como um movimento normal
+                send(sender, p -> p.offerChainJump(endRow, endCol));
             } else {
                 isChainJumpActive = false;
-                sender.receiveMove(startRow, startCol, endRow, endCol);
-                opponent.receiveMove(startRow, startCol, endRow, endCol);
-                
+                send(sender, p -> p.receiveMove(startRow, startCol, endRow, endCol));
+                send(opponent, p -> p.receiveMove(startRow, startCol, endRow, endCol));
+
                 if (board.checkForWinner(currentPlayer)) {
                     String winnerName = (currentPlayer == 1) ? player1Name : player2Name;
                     winnerInfo = winnerName + " ganhou por chegar no destino!";
@@ -212,44 +309,37 @@ public synchronized void sendEndChainJump(int playerId) throws RemoteException {
             }
         } else {
             if (senderId == 1) player1InvalidAttempts++; else player2InvalidAttempts++;
-            sender.receiveError("Movimento inválido.");
+            send(sender, p -> p.receiveError("Movimento inválido."));
         }
     }
 
     private void endGame(IClientCallback winner, IClientCallback loser, String winMessage, String loseMessage) {
         if (gameEnded) return;
-        gameEnded = true;
+        finish();
 
-        System.out.println("SERVER: A finalizar o jogo. Vencedor: " + (winner == player1 ? player1Name : player2Name));
-        
-        try {
-            sendGameOverStats(); // Envia estatísticas primeiro
-            
-            if ("VICTORY".equals(winMessage)) {
-                winner.notifyVictory("Parabéns, você ganhou!");
-            } else if ("OPPONENT_FORFEIT".equals(winMessage)) {
-                winner.notifyOpponentForfeit("Seu oponente desistiu. Você ganhou!");
-            }
-            
-            if ("DEFEAT".equals(loseMessage)) {
-                loser.notifyDefeat("Você perdeu a partida.");
-            } else if ("FORFEIT".equals(loseMessage)) {
-                 loser.notifyDefeat("Você desistiu da partida.");
-            }
+        Log.info(Log.Category.SESSION, "SERVER: A finalizar o jogo. Vencedor: " + (winner == player1 ? player1Name : player2Name));
+        // Atualiza o rating usado pelo matchmaker.
+        Ratings.recordWin(winner == player1 ? player1Name : player2Name, loser == player1 ? player1Name : player2Name);
+
+        sendGameOverStats(); // Envia estatísticas primeiro
+
+        if ("VICTORY".equals(winMessage)) {
+            send(winner, p -> p.notifyVictory("Parabéns, você ganhou!"));
+        } else if ("OPPONENT_FORFEIT".equals(winMessage)) {
+            send(winner, p -> p.notifyOpponentForfeit("Seu oponente desistiu. Você ganhou!"));
+        }
 
-        } catch (RemoteException e) {
-            System.err.println("Erro ao notificar fim de jogo. Um cliente pode ter caído.");
-            // Não precisa chamar handleDisconnect aqui, o jogo já terminou.
+        if ("DEFEAT".equals(loseMessage)) {
+            send(loser, p -> p.notifyDefeat("Você perdeu a partida."));
+        } else if ("FORFEIT".equals(loseMessage)) {
+            send(loser, p -> p.notifyDefeat("Você desistiu da partida."));
         }
     }
 
     private void updateTurn() {
-        try {
-            player1.setTurn(currentPlayer == 1);
-            player2.setTurn(currentPlayer == 2);
-        } catch (RemoteException e) {
-            handleDisconnect(null); // Desconexão séria se isso falhar
-        }
+        boolean player1Turn = currentPlayer == 1;
+        send(player1, p -> p.setTurn(player1Turn));
+        send(player2, p -> p.setTurn(!player1Turn));
     }
 
     private void switchTurn() {
@@ -258,26 +348,18 @@ public synchronized void sendEndChainJump(int playerId) throws RemoteException {
     }
 
     private void broadcastChat(String formattedMessage) {
-        try {
-            player1.receiveChatMessage(formattedMessage);
-        } catch (RemoteException e) { handleDisconnect(player1); }
-        
-        try {
-            player2.receiveChatMessage(formattedMessage);
-        } catch (RemoteException e) { handleDisconnect(player2); }
+        send(player1, p -> p.receiveChatMessage(formattedMessage));
+        send(player2, p -> p.receiveChatMessage(formattedMessage));
     }
 
     private void broadcastScoreUpdate() {
-        try {
-            player1.updateScore(player1MoveCount, player2MoveCount);
-        } catch (RemoteException e) { handleDisconnect(player1); }
-        
-        try {
-            player2.updateScore(player1MoveCount, player2MoveCount);
-        } catch (RemoteException e) { handleDisconnect(player2); }
+        int p1Moves = player1MoveCount;
+        int p2Moves = player2MoveCount;
+        send(player1, p -> p.updateScore(p1Moves, p2Moves));
+        send(player2, p -> p.updateScore(p1Moves, p2Moves));
     }
 
-    private void sendGameOverStats() throws RemoteException {
+    private void sendGameOverStats() {
         // Lógica de stats reutilizada
         String chatLog = String.join("|", chatHistory);
         StringJoiner stats = new StringJoiner(":"); // Usando ":" como no Protocolo original
@@ -287,12 +369,63 @@ public synchronized void sendEndChainJump(int playerId) throws RemoteException {
              .add(String.valueOf(player2MoveCount))
              .add(String.valueOf(player2InvalidAttempts))
              .add(chatLog);
-        
+
         String statsData = stats.toString();
-        
-        // Este método só é chamado por endGame ou handleDisconnect,
-        // então o try/catch será feito lá.
-        player1.receiveGameOverStats(statsData);
-        player2.receiveGameOverStats(statsData);
+        send(player1, p -> p.receiveGameOverStats(statsData));
+        send(player2, p -> p.receiveGameOverStats(statsData));
+    }
+
+    // Guarda um callback para o jogador; ele só é feito depois do lote atual, pela saída do jogador.
+    private void send(IClientCallback player, Callback callback) {
+        (player == player1 ? outbox1 : outbox2).add(callback);
     }
-}
\ No newline at end of file
+
+    // Saída de um jogador: os callbacks de cada lote são feitos em ordem na caixa de mensagens própria
+    // do jogador, para que um cliente lento não atrase a sessão nem as mensagens do outro jogador.
+    private final class Outbox {
+        private final IClientCallback player;
+        private final Mailbox calls = new Mailbox(callbacks, null);
+        private List<Callback> pending = new ArrayList<>(); // Só quem drena a caixa da sessão usa.
+        private volatile boolean failed = false; // A sessão também o marca quando o heartbeat desiste do cliente.
+        // Momento em que o último ping terminou (ou da criação da saída).
+        private volatile long lastPingNanos = System.nanoTime();
+        private volatile boolean pingInFlight = false;
+
+        Outbox(IClientCallback player) {
+            this.player = player;
+        }
+
+        long idleMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastPingNanos);
+        }
+
+        void add(Callback callback) {
+            pending.add(callback);
+        }
+
+        void flush() {
+            if (pending.isEmpty()) return;
+            List<Callback> batch = pending;
+            pending = new ArrayList<>();
+            calls.post(() -> {
+                if (failed) return;
+                try {
+                    for (Callback callback : batch) {
+                        if (failed) return;
+                        callback.invoke(player);
+                        if (callback == PING) {
+                            lastPingNanos = System.nanoTime();
+                            pingInFlight = false;
+                        }
+                    }
+                } catch (RemoteException e) {
+                    if (failed) return; // A sessão já desistiu deste cliente.
+                    // O cliente caiu: os próximos callbacks são descartados e a sessão é avisada pela sua caixa.
+                    failed = true;
+                    Log.warn(Log.Category.SESSION, "Falha ao chamar o cliente: " + e.getMessage());
+                    mailbox.post(() -> handleDisconnect(player));
+                }
+            });
+        }
+    }
+}
@@ -9,6 +9,32 @@ import java.rmi.registry.LocateRegistry;
 public class HalmaServerRMI {
 
     public static void main(String[] args) {
+        // Opções no formato --nome=valor, como no servidor de sockets.
+        long heartbeatInterval = 10_000;
+        long idleTimeout = 30_000;
+        try {
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Opção inválida: " + arg + " (use --nome=valor)");
+                }
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "log-level": Log.configure(value, null); break;
+                    case "log-categories": Log.configure(null, value); break;
+                    case "heartbeat-interval": heartbeatInterval = Long.parseLong(value); break;
+                    case "idle-timeout": idleTimeout = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("Opção desconhecida: " + name);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        GameSessionRMI.configureHeartbeat(heartbeatInterval, idleTimeout);
+        // Um callback para um cliente travado falha depois do limite em vez de prender uma thread para sempre.
+        if (idleTimeout > 0) System.setProperty("sun.rmi.transport.tcp.responseTimeout", String.valueOf(idleTimeout));
+
         // Reutiliza a lógica de UI do original
         Object portStr = JOptionPane.showInputDialog(null, "Digite a porta RMI:", "Configuração do Servidor", JOptionPane.QUESTION_MESSAGE, null, null, "1099");
 
@@ -30,7 +56,7 @@ public class HalmaServerRMI {
             
             // Mostra a UI de status
             SwingUtilities.invokeLater(() -> createAndShowGUI(port, url));
-            System.out.println("Servidor RMI do Halma pronto em: " + url);
+            Log.info(Log.Category.SERVER, "Servidor RMI do Halma pronto em: " + url);
 
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(null, "Porta inválida.", "Erro", JOptionPane.ERROR_MESSAGE);
@@ -0,0 +1,57 @@
+package br.com.victorsfec.halma.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caixa de mensagens de um ator (uma sessão de jogo ou a saída de um jogador).
+ *
+ * Qualquer thread pode entregar mensagens com post(), sem lock e sem esperar. As mensagens rodam
+ * uma de cada vez, na ordem em que chegaram, em um executor compartilhado por todas as sessões:
+ * no máximo uma thread drena esta caixa por vez, então o estado do ator não precisa de lock.
+ * Depois de cada lote, afterBatch roda na mesma thread (a sessão o usa para liberar os callbacks).
+ */
+final class Mailbox {
+    // Mensagens tratadas antes de devolver a thread ao executor, para uma sessão não monopolizá-la.
+    private static final int BATCH_SIZE = 64;
+
+    // Fila de vários produtores e um consumidor.
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    // Indica se já há um drain agendado ou rodando.
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Executor executor;
+    private final Runnable afterBatch;
+
+    Mailbox(Executor executor, Runnable afterBatch) {
+        this.executor = executor;
+        this.afterBatch = afterBatch;
+    }
+
+    // Entrega uma mensagem; agenda o drain se ninguém estiver drenando.
+    void post(Runnable message) {
+        queue.add(message);
+        if (scheduled.compareAndSet(false, true)) executor.execute(this::drain);
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable message = queue.poll();
+                if (message == null) break;
+                try {
+                    message.run();
+                } catch (RuntimeException e) {
+                    // Uma mensagem com erro não pode parar o ator.
+                    Log.error(Log.Category.SESSION, "Erro ao processar mensagem da sessão: " + e);
+                }
+            }
+            if (afterBatch != null) afterBatch.run();
+        } finally {
+            scheduled.set(false);
+            // Uma mensagem pode ter chegado depois do último poll; quem ganhar o CAS agenda o próximo drain.
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) executor.execute(this::drain);
+        }
+    }
+}
@@ -4,8 +4,6 @@ import br.com.victorsfec.halma.common.IClientCallback;
 import br.com.victorsfec.halma.common.IServerOperations;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.ArrayList;
-import java.util.List;
 
 // Classe auxiliar para armazenar dados do jogador na fila
 class WaitingPlayer {
@@ -16,8 +14,9 @@ class WaitingPlayer {
 
 public class ServerOperationsImpl extends UnicastRemoteObject implements IServerOperations {
     
-    // Lista sincronizada para a fila de espera (mesma lógica do HalmaServer)
-    private static final List<WaitingPlayer> waitingClients = new ArrayList<>();
+    // Fila de espera com pareamento por rating (a mesma do HalmaServer); no RMI não há bot, então não há limite de espera.
+    private static final Matchmaker<WaitingPlayer> matchmaker =
+            new Matchmaker<>(ServerOperationsImpl::startSession, -1, player -> { });
 
     public ServerOperationsImpl() throws RemoteException {
         super();
@@ -27,26 +26,12 @@ public class ServerOperationsImpl extends UnicastRemoteObject implements IServer
     public void connect(String playerName, IClientCallback callback) throws RemoteException {
         try {
             WaitingPlayer newPlayer = new WaitingPlayer(playerName, callback);
-            
-            // Lógica de matchmaking reutilizada de HalmaServer
-            synchronized (waitingClients) {
-                waitingClients.add(newPlayer);
-                System.out.println("Jogador conectado: " + playerName + ". Esperando oponente.");
-                callback.receiveInfo("Conectado. Aguardando oponente...");
-
-                if (waitingClients.size() >= 2) {
-                    WaitingPlayer player1 = waitingClients.remove(0);
-                    WaitingPlayer player2 = waitingClients.remove(0);
-                    System.out.println("Pareando jogadores: " + player1.name + " e " + player2.name);
-
-                    // Cria e inicia a sessão de jogo RMI
-                    GameSessionRMI gameSession = new GameSessionRMI(player1, player2);
-                    // Inicia a sessão de jogo em uma nova thread para não bloquear o RMI
-                    new Thread(gameSession).start();
-                }
-            }
+            Log.info(Log.Category.NET, "Jogador conectado: " + playerName + ". Esperando oponente.");
+            callback.receiveInfo("Conectado. Aguardando oponente...");
+            // O pareamento acontece na thread do matchmaker; esta chamada remota não espera por ele.
+            matchmaker.enqueue(newPlayer, Ratings.get(playerName));
         } catch (Exception e) {
-            System.err.println("Erro ao conectar jogador: " + e.getMessage());
+            Log.warn(Log.Category.NET, "Erro ao conectar jogador: " + e.getMessage());
             // Tenta notificar o cliente do erro
             try {
                 callback.receiveError("Erro do servidor ao processar sua conexão.");
@@ -55,4 +40,15 @@ public class ServerOperationsImpl extends UnicastRemoteObject implements IServer
             }
         }
     }
-}
\ No newline at end of file
+
+    // Chamado pelo matchmaker para cada par formado.
+    private static void startSession(WaitingPlayer player1, WaitingPlayer player2) {
+        Log.info(Log.Category.SERVER, "Pareando jogadores: " + player1.name + " e " + player2.name);
+        try {
+            // Cria e inicia a sessão de jogo RMI (no executor compartilhado das sessões)
+            new GameSessionRMI(player1, player2).start();
+        } catch (RemoteException e) {
+            Log.warn(Log.Category.SERVER, "Erro ao criar a sessão de jogo: " + e.getMessage());
+        }
+    }
+}
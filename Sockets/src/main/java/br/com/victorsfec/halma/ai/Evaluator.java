@@ -0,0 +1,52 @@
+package br.com.victorsfec.halma.ai;
+
+import br.com.victorsfec.halma.game.Board;
+
+/**
+ * Função de avaliação estática usada pelas buscas.
+ * Mede quanto falta para cada jogador levar as peças até o canto oposto
+ * (soma das distâncias em linhas e colunas até o canto), com uma penalidade para a peça mais atrasada.
+ * O valor é positivo quando a posição é boa para o jogador informado.
+ */
+public final class Evaluator {
+    // Distância de cada casa até o canto de destino de cada jogador (índice 1 e 2).
+    private static final int[][] DISTANCE = new int[3][Board.SQUARES];
+    // Peso da peça mais atrasada, para evitar que uma peça fique esquecida no campo inicial.
+    private static final int STRAGGLER_WEIGHT = 2;
+
+    static {
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            int row = Board.rowOf(sq);
+            int col = Board.colOf(sq);
+            DISTANCE[1][sq] = (Board.SIZE - 1 - row) + (Board.SIZE - 1 - col);
+            DISTANCE[2][sq] = row + col;
+        }
+    }
+
+    private Evaluator() {
+    }
+
+    // Avalia a posição do ponto de vista do jogador.
+    public static int evaluate(Board board, int player, int[] scratch) {
+        int opponent = 3 - player;
+        return remaining(board, opponent, scratch) - remaining(board, player, scratch);
+    }
+
+    // Quanto falta para o jogador chegar ao destino (0 significa todas as peças no canto).
+    public static int remaining(Board board, int player, int[] scratch) {
+        int count = board.getPieceSquares(player, scratch);
+        int total = 0;
+        int worst = 0;
+        for (int i = 0; i < count; i++) {
+            int distance = DISTANCE[player][scratch[i]];
+            total += distance;
+            if (distance > worst) worst = distance;
+        }
+        return total + STRAGGLER_WEIGHT * worst;
+    }
+
+    // Quanto a jogada aproxima a peça do destino; usado para ordenar jogadas.
+    public static int progress(int player, int move) {
+        return DISTANCE[player][TurnMoves.from(move)] - DISTANCE[player][TurnMoves.to(move)];
+    }
+}
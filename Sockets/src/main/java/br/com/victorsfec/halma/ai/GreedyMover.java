@@ -0,0 +1,39 @@
+package br.com.victorsfec.halma.ai;
+
+import br.com.victorsfec.halma.game.Board;
+import java.util.SplittableRandom;
+
+/**
+ * Escolhe a jogada que mais aproxima uma peça do destino (Evaluator.progress), sem olhar à frente.
+ * Empates são decididos por sorteio, para que duas partidas iguais não se repitam sempre. Não é thread-safe.
+ */
+public class GreedyMover implements MoveSearcher {
+    private final SplittableRandom random;
+    private final TurnMoves.Scratch scratch = new TurnMoves.Scratch();
+    private int[] moves = new int[0];
+
+    public GreedyMover(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    // O tempo é ignorado: a escolha é imediata.
+    @Override
+    public int findBestMove(Board board, int player, long timeBudgetMillis) {
+        if (moves.length < TurnMoves.capacity(board)) moves = new int[TurnMoves.capacity(board)];
+        int count = TurnMoves.generate(board, player, moves, scratch);
+        int best = TurnMoves.NONE;
+        int bestProgress = Integer.MIN_VALUE;
+        int ties = 0;
+        for (int i = 0; i < count; i++) {
+            int progress = Evaluator.progress(player, moves[i]);
+            if (progress > bestProgress) {
+                bestProgress = progress;
+                best = moves[i];
+                ties = 1;
+            } else if (progress == bestProgress && random.nextInt(++ties) == 0) {
+                best = moves[i]; // Amostragem de reservatório entre as jogadas empatadas.
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,248 @@
+package br.com.victorsfec.halma.ai;
+
+import br.com.victorsfec.halma.game.Board;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Busca em árvore de Monte Carlo (MCTS) com UCT e playouts concorrentes.
+ * Cada worker roda em sua própria thread (virtual, por padrão) sobre uma cópia do tabuleiro:
+ * desce pela árvore compartilhada, expande um filho, joga um playout curto e propaga o resultado.
+ *
+ * Paralelismo: as estatísticas dos filhos de um nó são protegidas pelo monitor desse nó (o pai),
+ * e cada descida aplica uma perda virtual no filho escolhido para que os outros workers
+ * explorem caminhos diferentes enquanto o playout não termina.
+ * O relógio é estrito: findBestMove retorna no prazo, mesmo que algum worker ainda esteja
+ * terminando um playout (ele para na iteração seguinte).
+ */
+public class MctsEngine implements MoveSearcher {
+    // Constante de exploração do UCT.
+    private static final double EXPLORATION = 1.0;
+    // Visitas sem recompensa somadas durante a descida (perda virtual).
+    private static final int VIRTUAL_LOSS = 1;
+    // Número máximo de jogadas de um playout antes de recorrer à avaliação estática.
+    private static final int PLAYOUT_PLIES = 16;
+    // Jogadas sorteadas por passo do playout; a que mais avança é escolhida.
+    private static final int PLAYOUT_SAMPLES = 4;
+    // Escala que converte a avaliação estática em probabilidade de vitória.
+    private static final double EVAL_SCALE = 40.0;
+    // Profundidade máxima da descida na árvore; abaixo disso o nó é tratado como folha.
+    private static final int MAX_TREE_DEPTH = 128;
+
+    private final int workers;
+    private final ThreadFactory threadFactory;
+    private volatile long lastIterations;
+
+    // Usa "workers" threads virtuais por busca.
+    public MctsEngine(int workers) {
+        this(workers, Thread.ofVirtual().name("halma-mcts-", 0).factory());
+    }
+
+    // Permite trocar o tipo de thread (por exemplo, threads de plataforma) para comparação.
+    public MctsEngine(int workers, ThreadFactory threadFactory) {
+        if (workers < 1) throw new IllegalArgumentException("O MCTS precisa de pelo menos um worker.");
+        this.workers = workers;
+        this.threadFactory = threadFactory;
+    }
+
+    @Override
+    public int findBestMove(Board board, int player, long timeBudgetMillis) {
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        Node root = new Node(TurnMoves.NONE, 3 - player, null);
+        Worker[] running = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            running[i] = new Worker(root, new Board(board), deadline, 0x4D435453L + i);
+            threadFactory.newThread(running[i]).start();
+        }
+
+        // Espera até o prazo; os workers param sozinhos ao ver o prazo vencido.
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                Thread.sleep(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Worker worker : running) worker.stopped = true;
+
+        long iterations = 0;
+        for (Worker worker : running) iterations += worker.iterations;
+        lastIterations = iterations;
+        return root.mostVisitedMove(board, player);
+    }
+
+    // Total de playouts da última busca.
+    public long getLastIterations() {
+        return lastIterations;
+    }
+
+    // Nó da árvore. Os campos visits e reward são protegidos pelo monitor do pai (ou do próprio nó, na raiz).
+    private static final class Node {
+        final int move;
+        final int mover; // Jogador que fez "move" para chegar neste nó.
+        final Node parent;
+        int visits;
+        double reward;
+        // Jogadas e filhos, criados na primeira visita (protegidos pelo monitor deste nó).
+        int[] moves;
+        Node[] children;
+        int expanded;
+        boolean terminal;
+
+        Node(int move, int mover, Node parent) {
+            this.move = move;
+            this.mover = mover;
+            this.parent = parent;
+        }
+
+        Object statsLock() {
+            return parent != null ? parent : this;
+        }
+
+        // Escolhe a jogada mais visitada da raiz; se nada foi expandido, usa a primeira jogada legal.
+        int mostVisitedMove(Board board, int player) {
+            synchronized (this) {
+                Node best = null;
+                for (int i = 0; i < expanded; i++) {
+                    if (best == null || children[i].visits > best.visits) best = children[i];
+                }
+                if (best != null) return best.move;
+            }
+            int[] fallback = new int[TurnMoves.capacity(board)];
+            int count = TurnMoves.generate(board, player, fallback, new TurnMoves.Scratch());
+            return count > 0 ? fallback[0] : TurnMoves.NONE;
+        }
+    }
+
+    // Um worker: repete seleção, expansão, playout e retropropagação até o prazo.
+    private static final class Worker implements Runnable {
+        private final Node root;
+        private final Board board;
+        private final long deadline;
+        private final SplittableRandom random;
+        private final TurnMoves.Scratch scratch = new TurnMoves.Scratch();
+        private final int[] moveBuffer;
+        private final int[] evalScratch = new int[Board.SQUARES];
+        volatile boolean stopped;
+        volatile long iterations;
+
+        Worker(Node root, Board board, long deadline, long seed) {
+            this.root = root;
+            this.board = board;
+            this.deadline = deadline;
+            this.random = new SplittableRandom(seed);
+            this.moveBuffer = new int[TurnMoves.capacity(board)];
+        }
+
+        @Override
+        public void run() {
+            while (!stopped && System.nanoTime() < deadline) {
+                int depth = 0;
+                Node node = root;
+                // 1. Seleção e expansão, aplicando perda virtual em cada nó visitado.
+                while (true) {
+                    Node next;
+                    synchronized (node) {
+                        if (node.terminal) break;
+                        if (node.moves == null) expand(node);
+                        if (node.moves.length == 0) break;
+                        next = node.expanded < node.moves.length ? addChild(node) : selectChild(node);
+                        next.visits += VIRTUAL_LOSS;
+                    }
+                    board.makeMove(TurnMoves.from(next.move), TurnMoves.to(next.move));
+                    depth++;
+                    node = next;
+                    if (node.children == null || depth == MAX_TREE_DEPTH) {
+                        if (board.checkForWinner(node.mover)) {
+                            synchronized (node) { node.terminal = true; }
+                        }
+                        break;
+                    }
+                }
+
+                // 2. Playout a partir da folha e 3. retropropagação.
+                double player1Value = node.terminal ? (node.mover == 1 ? 1.0 : 0.0) : playout(3 - node.mover);
+                backpropagate(node, player1Value);
+                while (depth-- > 0) board.unmakeMove();
+                iterations++;
+            }
+        }
+
+        private void expand(Node node) {
+            int count = TurnMoves.generate(board, 3 - node.mover, moveBuffer, scratch);
+            int[] moves = new int[count];
+            System.arraycopy(moveBuffer, 0, moves, 0, count);
+            // Embaralha para que a ordem de expansão não favoreça sempre as mesmas peças.
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = moves[i]; moves[i] = moves[j]; moves[j] = tmp;
+            }
+            node.moves = moves;
+            node.children = new Node[count];
+        }
+
+        private static Node addChild(Node node) {
+            Node child = new Node(node.moves[node.expanded], 3 - node.mover, node);
+            node.children[node.expanded++] = child;
+            return child;
+        }
+
+        // UCT sobre os filhos já expandidos (chamado com o monitor do nó).
+        private static Node selectChild(Node node) {
+            double logVisits = Math.log(Math.max(1, node.visits));
+            Node best = node.children[0];
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < node.expanded; i++) {
+                Node child = node.children[i];
+                int visits = Math.max(1, child.visits);
+                double value = child.reward / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        // Playout curto guiado por avanço; devolve a chance de vitória do jogador 1.
+        private double playout(int player) {
+            int plies = 0;
+            double result = -1;
+            while (plies < PLAYOUT_PLIES) {
+                int count = TurnMoves.generate(board, player, moveBuffer, scratch);
+                if (count == 0) break;
+                int move = moveBuffer[random.nextInt(count)];
+                for (int s = 1; s < PLAYOUT_SAMPLES; s++) {
+                    int candidate = moveBuffer[random.nextInt(count)];
+                    if (Evaluator.progress(player, candidate) > Evaluator.progress(player, move)) move = candidate;
+                }
+                board.makeMove(TurnMoves.from(move), TurnMoves.to(move));
+                plies++;
+                if (board.checkForWinner(player)) {
+                    result = player == 1 ? 1.0 : 0.0;
+                    break;
+                }
+                player = 3 - player;
+            }
+            if (result < 0) {
+                int score = Evaluator.evaluate(board, 1, evalScratch);
+                result = 1.0 / (1.0 + Math.exp(-score / EVAL_SCALE));
+            }
+            while (plies-- > 0) board.unmakeMove();
+            return result;
+        }
+
+        // Soma o resultado em cada nó do caminho; a visita já foi contada pela perda virtual.
+        private static void backpropagate(Node node, double player1Value) {
+            for (; node != null; node = node.parent) {
+                synchronized (node.statsLock()) {
+                    if (node.parent == null) node.visits++;
+                    else node.visits += 1 - VIRTUAL_LOSS;
+                    node.reward += node.mover == 1 ? player1Value : 1.0 - player1Value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package br.com.victorsfec.halma.ai;
+
+import br.com.victorsfec.halma.game.Board;
+
+/**
+ * Motor que escolhe a jogada de um jogador dentro de um limite de tempo.
+ * Implementado pelas buscas usadas pelo bot do servidor.
+ */
+public interface MoveSearcher {
+    /**
+     * @param board O tabuleiro (pode ser modificado durante a busca, mas é restaurado ao final).
+     * @param player O jogador que vai jogar.
+     * @param timeBudgetMillis Tempo máximo de busca em milissegundos.
+     * @return A jogada empacotada (TurnMoves), ou TurnMoves.NONE se não houver jogadas.
+     */
+    int findBestMove(Board board, int player, long timeBudgetMillis);
+}
@@ -0,0 +1,82 @@
+package br.com.victorsfec.halma.ai;
+
+import br.com.victorsfec.halma.game.Board;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Busca paralela no estilo Lazy SMP: a thread chamadora e até (threads - 1) auxiliares
+ * buscam a mesma posição ao mesmo tempo, compartilhando uma única tabela de transposição.
+ * As auxiliares começam em profundidades diferentes e preenchem a tabela, o que acelera
+ * a busca principal; apenas o resultado da thread chamadora é usado.
+ * As auxiliares rodam no executor informado, normalmente um ForkJoinPool compartilhado pelo servidor,
+ * então "threads" é o orçamento de núcleos desta sessão dentro daquele pool.
+ */
+public class ParallelSearchEngine implements MoveSearcher {
+    private final Executor helperPool;
+    private final SearchEngine main;
+    private final SearchEngine[] helpers;
+    // Indica se cada auxiliar ainda está ocupada com a busca anterior.
+    private final AtomicBoolean[] helperBusy;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+
+    public ParallelSearchEngine(Executor helperPool, int threads) {
+        this(helperPool, threads, SearchEngine.DEFAULT_TABLE_BITS);
+    }
+
+    public ParallelSearchEngine(Executor helperPool, int threads, int tableBits) {
+        if (threads < 1) throw new IllegalArgumentException("A busca precisa de pelo menos uma thread.");
+        TranspositionTable table = new TranspositionTable(tableBits);
+        this.helperPool = helperPool;
+        this.main = new SearchEngine(table);
+        this.helpers = new SearchEngine[threads - 1];
+        this.helperBusy = new AtomicBoolean[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new SearchEngine(table);
+            helpers[i].setStopSignal(stopSignal);
+            helperBusy[i] = new AtomicBoolean();
+        }
+    }
+
+    @Override
+    public int findBestMove(Board board, int player, long timeBudgetMillis) {
+        stopSignal.set(false);
+        for (int i = 0; i < helpers.length; i++) {
+            // Uma auxiliar que ainda não terminou a busca anterior fica de fora desta.
+            if (!helperBusy[i].compareAndSet(false, true)) continue;
+            SearchEngine helper = helpers[i];
+            AtomicBoolean busy = helperBusy[i];
+            Board copy = new Board(board);
+            int startDepth = 1 + (i + 1) % 2;
+            try {
+                helperPool.execute(() -> {
+                    try {
+                        if (!stopSignal.get()) {
+                            helper.findBestMove(copy, player, timeBudgetMillis, startDepth, SearchEngine.MAX_DEPTH);
+                        }
+                    } finally {
+                        busy.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                busy.set(false); // Pool encerrado ou cheio: busca só com as threads disponíveis.
+            }
+        }
+        try {
+            return main.findBestMove(board, player, timeBudgetMillis);
+        } finally {
+            stopSignal.set(true); // Encerra as auxiliares assim que a busca principal termina.
+        }
+    }
+
+    // Profundidade concluída pela busca principal na última chamada.
+    public int getCompletedDepth() {
+        return main.getCompletedDepth();
+    }
+
+    // Nós visitados pela busca principal na última chamada.
+    public long getNodes() {
+        return main.getNodes();
+    }
+}
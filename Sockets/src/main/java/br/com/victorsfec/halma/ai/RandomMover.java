@@ -0,0 +1,26 @@
+package br.com.victorsfec.halma.ai;
+
+import br.com.victorsfec.halma.game.Board;
+import java.util.SplittableRandom;
+
+/**
+ * Escolhe uma jogada legal qualquer, com distribuição uniforme.
+ * Serve de adversário de referência na simulação de partidas. Não é thread-safe.
+ */
+public class RandomMover implements MoveSearcher {
+    private final SplittableRandom random;
+    private final TurnMoves.Scratch scratch = new TurnMoves.Scratch();
+    private int[] moves = new int[0];
+
+    public RandomMover(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    // O tempo é ignorado: a escolha é imediata.
+    @Override
+    public int findBestMove(Board board, int player, long timeBudgetMillis) {
+        if (moves.length < TurnMoves.capacity(board)) moves = new int[TurnMoves.capacity(board)];
+        int count = TurnMoves.generate(board, player, moves, scratch);
+        return count == 0 ? TurnMoves.NONE : moves[random.nextInt(count)];
+    }
+}
@@ -0,0 +1,223 @@
+package br.com.victorsfec.halma.ai;
+
+import br.com.victorsfec.halma.game.Board;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Busca alfa-beta (negamax) com aprofundamento iterativo, tabela de transposição
+ * e limite de tempo por jogada. Cada instância guarda seus próprios buffers e
+ * não deve ser usada por duas threads ao mesmo tempo; várias instâncias podem
+ * compartilhar a mesma tabela (ver ParallelSearchEngine).
+ */
+public class SearchEngine implements MoveSearcher {
+    // Valor de uma vitória; vitórias mais próximas valem mais (WIN - ply).
+    public static final int WIN = 1_000_000;
+    // Profundidade máxima do aprofundamento iterativo.
+    public static final int MAX_DEPTH = 32;
+    // Tamanho padrão da tabela de transposição (2^20 entradas, cerca de 16 MB).
+    public static final int DEFAULT_TABLE_BITS = 20;
+
+    // Chave xor aplicada ao hash quando é a vez do jogador 2, para distinguir o turno na tabela.
+    static final long SIDE_TO_MOVE_KEY = 0x9E3779B97F4A7C15L;
+    // Intervalo (em nós) entre as verificações do relógio.
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final TranspositionTable table;
+    private final TurnMoves.Scratch scratch = new TurnMoves.Scratch();
+    private final int[] evalScratch = new int[Board.SQUARES];
+    private int[][] moveStack = new int[0][];
+    private int[][] scoreStack = new int[0][];
+
+    // Sinal externo de parada, usado pela busca paralela para encerrar as threads auxiliares.
+    private AtomicBoolean stopSignal;
+    private long deadline;
+    private boolean stopped;
+    private long nodes;
+    private int completedDepth;
+
+    public SearchEngine() {
+        this(new TranspositionTable(DEFAULT_TABLE_BITS));
+    }
+
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Procura a melhor jogada dentro do tempo informado.
+     * A primeira iteração (profundidade 1) é sempre concluída, mesmo que o tempo acabe.
+     * @param board O tabuleiro (é modificado durante a busca e restaurado ao final).
+     * @param player O jogador que vai jogar.
+     * @param timeBudgetMillis Tempo máximo de busca em milissegundos.
+     * @return A jogada empacotada (TurnMoves), ou TurnMoves.NONE se não houver jogadas.
+     */
+    @Override
+    public int findBestMove(Board board, int player, long timeBudgetMillis) {
+        return findBestMove(board, player, timeBudgetMillis, MAX_DEPTH);
+    }
+
+    public int findBestMove(Board board, int player, long timeBudgetMillis, int maxDepth) {
+        return findBestMove(board, player, timeBudgetMillis, 1, maxDepth);
+    }
+
+    /**
+     * Igual a findBestMove, mas começando o aprofundamento em startDepth
+     * (as threads auxiliares da busca paralela começam em profundidades diferentes).
+     */
+    public int findBestMove(Board board, int player, long timeBudgetMillis, int startDepth, int maxDepth) {
+        ensureBuffers(board);
+        deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        stopped = false;
+        nodes = 0;
+        completedDepth = 0;
+
+        int bestMove = TurnMoves.NONE;
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            int move = searchRoot(board, player, depth);
+            // Só aproveita iterações completas; a primeira só é interrompida pelo sinal externo.
+            if (stopped) {
+                if (bestMove == TurnMoves.NONE) bestMove = move;
+                break;
+            }
+            bestMove = move;
+            completedDepth = depth;
+            if (System.nanoTime() > deadline) break;
+        }
+        return bestMove;
+    }
+
+    public void setStopSignal(AtomicBoolean stopSignal) {
+        this.stopSignal = stopSignal;
+    }
+
+    // Nós visitados na última busca.
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Maior profundidade concluída na última busca.
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    private int searchRoot(Board board, int player, int depth) {
+        int[] moves = moveStack[0];
+        int[] scores = scoreStack[0];
+        long entry = table.probe(key(board, player));
+        int count = orderedMoves(board, player, 0, entry != 0 ? TranspositionTable.move(entry) : TurnMoves.NONE);
+        int alpha = -WIN - 1;
+        int bestMove = count > 0 ? moves[0] : TurnMoves.NONE;
+        for (int i = 0; i < count; i++) {
+            pickNext(moves, scores, i, count);
+            int move = moves[i];
+            board.makeMove(TurnMoves.from(move), TurnMoves.to(move));
+            int score = -negamax(board, 3 - player, depth - 1, 1, -WIN - 1, -alpha);
+            board.unmakeMove();
+            if (stopped) return bestMove;
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+        table.store(key(board, player), bestMove, depth, TranspositionTable.EXACT, alpha);
+        return bestMove;
+    }
+
+    private int negamax(Board board, int player, int depth, int ply, int alpha, int beta) {
+        if ((++nodes % TIME_CHECK_INTERVAL) == 0) checkStop();
+        if (stopped) return 0;
+
+        // O jogador que acabou de mover pode ter vencido.
+        if (board.checkForWinner(3 - player)) return -WIN + ply;
+        if (depth == 0 || ply >= moveStack.length) return Evaluator.evaluate(board, player, evalScratch);
+
+        long key = key(board, player);
+        long entry = table.probe(key);
+        int ttMove = TurnMoves.NONE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int ttScore = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && ttScore >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && ttScore <= alpha)) {
+                    return ttScore;
+                }
+            }
+        }
+
+        int[] moves = moveStack[ply];
+        int[] scores = scoreStack[ply];
+        int count = orderedMoves(board, player, ply, ttMove);
+        if (count == 0) return Evaluator.evaluate(board, player, evalScratch);
+
+        int originalAlpha = alpha;
+        int best = -WIN - 1;
+        int bestMove = moves[0];
+        for (int i = 0; i < count; i++) {
+            pickNext(moves, scores, i, count);
+            int move = moves[i];
+            board.makeMove(TurnMoves.from(move), TurnMoves.to(move));
+            int score = -negamax(board, 3 - player, depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+        }
+
+        if (!stopped) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                    : best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+            table.store(key, bestMove, depth, bound, best);
+        }
+        return best;
+    }
+
+    // O tempo só interrompe depois da primeira iteração completa; o sinal externo interrompe sempre.
+    private void checkStop() {
+        if (stopSignal != null && stopSignal.get()) {
+            stopped = true;
+        } else if (completedDepth > 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+    }
+
+    // Gera as jogadas do nível e calcula a nota de ordenação (jogada da tabela primeiro, depois o avanço).
+    private int orderedMoves(Board board, int player, int ply, int ttMove) {
+        int[] moves = moveStack[ply];
+        int[] scores = scoreStack[ply];
+        int count = TurnMoves.generate(board, player, moves, scratch);
+        for (int i = 0; i < count; i++) {
+            scores[i] = moves[i] == ttMove ? Integer.MAX_VALUE : Evaluator.progress(player, moves[i]);
+        }
+        return count;
+    }
+
+    // Ordenação por seleção parcial: traz para a posição i a jogada de maior nota restante.
+    private static void pickNext(int[] moves, int[] scores, int i, int count) {
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        if (best != i) {
+            int move = moves[i]; moves[i] = moves[best]; moves[best] = move;
+            int score = scores[i]; scores[i] = scores[best]; scores[best] = score;
+        }
+    }
+
+    static long key(Board board, int player) {
+        return player == 2 ? board.getZobristHash() ^ SIDE_TO_MOVE_KEY : board.getZobristHash();
+    }
+
+    private void ensureBuffers(Board board) {
+        int capacity = TurnMoves.capacity(board);
+        if (moveStack.length == 0 || moveStack[0].length < capacity) {
+            moveStack = new int[MAX_DEPTH + 1][capacity];
+            scoreStack = new int[MAX_DEPTH + 1][capacity];
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.victorsfec.halma.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tabela de transposição de tamanho fixo, indexada pelo hash de Zobrist da posição.
+ * Cada entrada guarda um long com a jogada, a profundidade, o tipo do limite e o valor.
+ * Em colisão de índice a entrada nova substitui a antiga.
+ *
+ * A tabela pode ser compartilhada por várias threads de busca sem travas: a chave é gravada
+ * como (hash xor entrada), então uma leitura que mistura a chave de uma escrita com a entrada
+ * de outra não confere e é tratada como ausente.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray entries;
+    private final int mask;
+
+    // Cria uma tabela com 2^bits entradas.
+    public TranspositionTable(int bits) {
+        int size = 1 << bits;
+        this.keys = new AtomicLongArray(size);
+        this.entries = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Procura a posição. Retorna a entrada empacotada, ou 0 se a posição não está na tabela
+     * (uma entrada válida nunca é 0 porque a profundidade gravada é sempre pelo menos 1).
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entry = entries.getOpaque(index);
+        return (keys.getOpaque(index) ^ entry) == key ? entry : 0;
+    }
+
+    public void store(long key, int move, int depth, int bound, int score) {
+        int index = (int) key & mask;
+        long entry = pack(move, depth, bound, score);
+        entries.setOpaque(index, entry);
+        keys.setOpaque(index, key ^ entry);
+    }
+
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            keys.setOpaque(i, 0);
+            entries.setOpaque(i, 0);
+        }
+    }
+
+    static long pack(int move, int depth, int bound, int score) {
+        return (move & 0x3FFFL) | ((long) (depth + 1) << 14) | ((long) bound << 22) | ((long) score << 32);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0x3FFF);
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 14) & 0xFF) - 1;
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 22) & 0x3);
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >> 32);
+    }
+}
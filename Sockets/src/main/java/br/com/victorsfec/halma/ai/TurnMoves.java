@@ -0,0 +1,92 @@
+package br.com.victorsfec.halma.ai;
+
+import br.com.victorsfec.halma.game.Board;
+import br.com.victorsfec.halma.game.BoardTables;
+
+/**
+ * Geração de jogadas completas (um turno inteiro) para a busca.
+ * Uma jogada é um passo simples ou o destino final de um salto em cadeia, empacotada em um int:
+ * os 7 bits baixos guardam a casa de origem e os 7 bits seguintes a casa de destino
+ * (o mesmo formato de Board.packMove, então a jogada vai direto para Board.makeMove).
+ */
+public final class TurnMoves {
+    // Valor usado para "nenhuma jogada".
+    public static final int NONE = 0;
+
+    private TurnMoves() {
+    }
+
+    public static int pack(int from, int to) {
+        return Board.packMove(from, to);
+    }
+
+    public static int from(int move) {
+        return Board.moveFrom(move);
+    }
+
+    public static int to(int move) {
+        return Board.moveTo(move);
+    }
+
+    // Verifica se a jogada é um salto (destino fora da vizinhança imediata da origem).
+    public static boolean isJump(int move) {
+        int from = from(move);
+        int to = to(move);
+        return Math.abs(Board.rowOf(from) - Board.rowOf(to)) > 1 || Math.abs(Board.colOf(from) - Board.colOf(to)) > 1;
+    }
+
+    // Tamanho mínimo do array de jogadas para um tabuleiro: cada peça alcança no máximo todas as casas.
+    public static int capacity(Board board) {
+        return board.getPiecesPerPlayer() * Board.SQUARES;
+    }
+
+    /**
+     * Gera todas as jogadas do jogador: passos simples e todos os destinos de saltos em cadeia.
+     * @param board O tabuleiro.
+     * @param player O jogador (1 ou 2).
+     * @param moves Array de saída, com pelo menos capacity(board) posições.
+     * @param scratch Buffers de trabalho reutilizados entre chamadas.
+     * @return A quantidade de jogadas escritas.
+     */
+    public static int generate(Board board, int player, int[] moves, Scratch scratch) {
+        int pieceCount = board.getPieceSquares(player, scratch.pieces);
+        int count = 0;
+        for (int p = 0; p < pieceCount; p++) {
+            int from = scratch.pieces[p];
+            for (int target : BoardTables.stepTargets(from)) {
+                if (!board.isOccupied(target)) moves[count++] = pack(from, target);
+            }
+            int jumps = board.getChainJumpTargets(Board.rowOf(from), Board.colOf(from), scratch.targets, scratch.parents);
+            for (int i = 0; i < jumps; i++) {
+                moves[count++] = pack(from, scratch.targets[i]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Escreve no array "path" a origem seguida de cada casa de pouso da jogada (para montar MOVE_PATH).
+     * @return O número de casas escritas (2 para um passo simples).
+     */
+    public static int path(Board board, int move, int[] path, Scratch scratch) {
+        int from = from(move);
+        int to = to(move);
+        path[0] = from;
+        if (!isJump(move)) {
+            path[1] = to;
+            return 2;
+        }
+        board.getChainJumpTargets(Board.rowOf(from), Board.colOf(from), scratch.targets, scratch.parents);
+        int length = Board.tracePath(scratch.parents, to, scratch.path);
+        System.arraycopy(scratch.path, 0, path, 1, length);
+        return length + 1;
+    }
+
+    // Buffers de trabalho da geração de jogadas, um conjunto por thread de busca.
+    public static final class Scratch {
+        final int[] pieces = new int[Board.SQUARES];
+        final int[] targets = new int[Board.SQUARES];
+        final int[] parents = new int[Board.SQUARES];
+        final int[] path = new int[Board.SQUARES];
+    }
+}
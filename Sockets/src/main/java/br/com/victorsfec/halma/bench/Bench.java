@@ -0,0 +1,105 @@
+package br.com.victorsfec.halma.bench;
+
+import java.util.Arrays;
+
+/**
+ * Harness mínimo de microbenchmark, no estilo do JMH, sem dependências externas.
+ * Cada benchmark roda em lotes: primeiro o aquecimento (para o JIT compilar o código medido),
+ * depois algumas iterações medidas. O relatório mostra a mediana e o melhor tempo por operação.
+ * O valor retornado por cada operação é acumulado em "sink" para que o JIT não elimine o trabalho.
+ */
+public class Bench {
+    // Uma operação medida; o retorno é consumido pelo harness.
+    @FunctionalInterface
+    public interface Op {
+        long run();
+    }
+
+    private final long warmupMillis;
+    private final long iterationMillis;
+    private final int iterations;
+    private final String filter;
+    private long sink;
+
+    public Bench(long warmupMillis, long iterationMillis, int iterations, String filter) {
+        this.warmupMillis = warmupMillis;
+        this.iterationMillis = iterationMillis;
+        this.iterations = iterations;
+        this.filter = filter;
+    }
+
+    // Lê as opções --warmup=ms, --time=ms, --iterations=n e --filter=texto.
+    public static Bench fromArgs(String[] args) {
+        long warmup = 1_000;
+        long time = 1_000;
+        int iterations = 5;
+        String filter = "";
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opção inválida: " + arg + " (use --nome=valor)");
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "warmup":
+                    warmup = Long.parseLong(value);
+                    break;
+                case "time":
+                    time = Long.parseLong(value);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "filter":
+                    filter = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opção desconhecida: " + name);
+            }
+        }
+        return new Bench(warmup, time, iterations, filter);
+    }
+
+    // Imprime o cabeçalho do relatório.
+    public void header() {
+        System.out.printf("%-40s %14s %14s %14s%n", "Benchmark", "mediana ns/op", "melhor ns/op", "ops/s");
+    }
+
+    // Executa um benchmark, se o nome passar pelo filtro, e imprime uma linha do relatório.
+    public void run(String name, Op op) {
+        if (!name.contains(filter)) return;
+        measure(op, warmupMillis * 1_000_000L);
+        double[] nanosPerOp = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            nanosPerOp[i] = measure(op, iterationMillis * 1_000_000L);
+        }
+        Arrays.sort(nanosPerOp);
+        double median = nanosPerOp[iterations / 2];
+        System.out.printf("%-40s %14.1f %14.1f %14.0f%n", name, median, nanosPerOp[0], 1e9 / median);
+    }
+
+    // Valor acumulado dos resultados; imprimir no final garante que nada foi descartado.
+    public long getSink() {
+        return sink;
+    }
+
+    // Roda lotes da operação até completar o tempo pedido; retorna ns por operação.
+    // O lote dobra enquanto leva menos de 10 ms, para que o custo de ler o relógio não pese.
+    private double measure(Op op, long nanos) {
+        long operations = 0;
+        long batch = 1;
+        long start = System.nanoTime();
+        long elapsed = 0;
+        while (elapsed < nanos) {
+            long batchStart = System.nanoTime();
+            long acc = 0;
+            for (long i = 0; i < batch; i++) acc += op.run();
+            sink += acc;
+            operations += batch;
+            long now = System.nanoTime();
+            if (now - batchStart < 10_000_000L) batch <<= 1;
+            elapsed = now - start;
+        }
+        return (double) elapsed / operations;
+    }
+}
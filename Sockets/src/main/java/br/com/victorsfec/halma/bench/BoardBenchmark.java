@@ -0,0 +1,129 @@
+package br.com.victorsfec.halma.bench;
+
+import br.com.victorsfec.halma.ai.Evaluator;
+import br.com.victorsfec.halma.ai.TurnMoves;
+import br.com.victorsfec.halma.game.Board;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks do tabuleiro: geração de movimentos, movePiece, canJumpFrom, checkForWinner
+ * e partidas aleatórias completas, em posições de abertura, meio-jogo e final.
+ * As posições são geradas com semente fixa, então os números são comparáveis entre execuções.
+ *
+ * Uso: java -cp HalmaServer.jar br.com.victorsfec.halma.bench.BoardBenchmark [--warmup=ms] [--time=ms] [--iterations=n] [--filter=texto]
+ */
+public class BoardBenchmark {
+    private static final long SEED = 0x48414C4D41L;
+    // Jogadas que levam a abertura até o meio-jogo.
+    private static final int MIDDLEGAME_PLIES = 30;
+    // Peças no campo do oponente que caracterizam o final.
+    private static final int ENDGAME_PIECES_IN_GOAL = 10;
+    // Limite de jogadas de uma partida aleatória (evita partidas infinitas).
+    private static final int MAX_GAME_PLIES = 1_000;
+
+    public static void main(String[] args) {
+        Bench bench;
+        try {
+            bench = Bench.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        Board opening = new Board();
+        Board middlegame = new Board();
+        playGuided(middlegame, new SplittableRandom(SEED), MIDDLEGAME_PLIES, Integer.MAX_VALUE);
+        Board endgame = new Board();
+        playGuided(endgame, new SplittableRandom(SEED), MAX_GAME_PLIES, ENDGAME_PIECES_IN_GOAL);
+
+        bench.header();
+        positionBenchmarks(bench, "abertura", opening);
+        positionBenchmarks(bench, "meio-jogo", middlegame);
+        positionBenchmarks(bench, "final", endgame);
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        bench.run("partida/aleatoria-guiada", () -> playGuided(new Board(), random, MAX_GAME_PLIES, Integer.MAX_VALUE));
+        System.out.println("(sink " + bench.getSink() + ")");
+    }
+
+    // Benchmarks que rodam sobre uma posição fixa, sempre com o jogador 1 na vez.
+    private static void positionBenchmarks(Bench bench, String position, Board board) {
+        int[] pieces = new int[Board.SQUARES];
+        int pieceCount = board.getPieceSquares(1, pieces);
+        int[] moves = new int[Board.MAX_MOVES];
+
+        bench.run(position + "/getValidMoves", () -> {
+            long total = 0;
+            for (int i = 0; i < pieceCount; i++) {
+                total += board.getValidMoves(Board.rowOf(pieces[i]), Board.colOf(pieces[i]), false, moves);
+            }
+            return total;
+        });
+        bench.run(position + "/getValidMoves-lista", () -> {
+            long total = 0;
+            for (int i = 0; i < pieceCount; i++) {
+                total += board.getValidMoves(Board.rowOf(pieces[i]), Board.colOf(pieces[i]), false).size();
+            }
+            return total;
+        });
+        bench.run(position + "/canJumpFrom", () -> {
+            long total = 0;
+            for (int i = 0; i < pieceCount; i++) {
+                if (board.canJumpFrom(Board.rowOf(pieces[i]), Board.colOf(pieces[i]))) total++;
+            }
+            return total;
+        });
+        bench.run(position + "/checkForWinner", () -> (board.checkForWinner(1) ? 1 : 0) + (board.checkForWinner(2) ? 2 : 0));
+
+        // movePiece seguido de unmakeMove, percorrendo os movimentos legais de um passo ou salto da posição.
+        int[] turnMoves = new int[TurnMoves.capacity(board)];
+        TurnMoves.Scratch scratch = new TurnMoves.Scratch();
+        int legal = 0;
+        for (int i = 0; i < pieceCount; i++) {
+            int count = board.getValidMoves(Board.rowOf(pieces[i]), Board.colOf(pieces[i]), false, moves);
+            for (int j = 0; j < count; j++) turnMoves[legal++] = Board.packMove(pieces[i], moves[j]);
+        }
+        int legalMoves = legal;
+        int[] next = new int[1];
+        bench.run(position + "/movePiece+unmakeMove", () -> {
+            int move = turnMoves[next[0]];
+            next[0] = (next[0] + 1) % legalMoves;
+            int from = Board.moveFrom(move);
+            int to = Board.moveTo(move);
+            boolean moved = board.movePiece(Board.rowOf(from), Board.colOf(from), Board.rowOf(to), Board.colOf(to), 1, false);
+            if (!moved) return 0;
+            long hash = board.getZobristHash();
+            board.unmakeMove();
+            return hash;
+        });
+        bench.run(position + "/TurnMoves.generate", () -> TurnMoves.generate(board, 1, turnMoves, scratch));
+    }
+
+    /**
+     * Joga uma partida com jogadas aleatórias enviesadas para o avanço (a melhor de duas sorteadas),
+     * até o limite de jogadas, até alguém vencer ou até um jogador ter "piecesInGoal" peças no campo do oponente.
+     * Com maxPlies par, a posição final fica com o jogador 1 na vez (salvo vitória).
+     * @return A quantidade de jogadas feitas.
+     */
+    static int playGuided(Board board, SplittableRandom random, int maxPlies, int piecesInGoal) {
+        int[] moves = new int[TurnMoves.capacity(board)];
+        TurnMoves.Scratch scratch = new TurnMoves.Scratch();
+        int player = 1;
+        int plies = 0;
+        while (plies < maxPlies) {
+            int count = TurnMoves.generate(board, player, moves, scratch);
+            if (count == 0) break;
+            int move = moves[random.nextInt(count)];
+            int other = moves[random.nextInt(count)];
+            if (Evaluator.progress(player, other) > Evaluator.progress(player, move)) move = other;
+            board.makeMove(TurnMoves.from(move), TurnMoves.to(move));
+            plies++;
+            if (board.checkForWinner(player)) break;
+            // O limite de peças só é verificado depois da resposta do jogador 2, para que a vez fique com o jogador 1.
+            if (player == 2 && Math.max(board.getPiecesInGoal(1), board.getPiecesInGoal(2)) >= piecesInGoal) break;
+            player = 3 - player;
+        }
+        return plies;
+    }
+}
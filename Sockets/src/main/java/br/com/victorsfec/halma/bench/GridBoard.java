@@ -0,0 +1,126 @@
+package br.com.victorsfec.halma.bench;
+
+import br.com.victorsfec.halma.game.Board;
+import br.com.victorsfec.halma.game.Piece;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementação de referência do tabuleiro sobre uma matriz Piece[][], igual à versão original do Board.
+ * Serve de oráculo para o Perft: qualquer representação otimizada precisa gerar as mesmas contagens.
+ * Os saltos em cadeia são explorados em profundidade, movendo a peça salto a salto como faz a GameSession,
+ * independente da busca em largura do Board.
+ */
+class GridBoard {
+    private static final int SIZE = Board.SIZE;
+    private final Piece[][] grid = new Piece[SIZE][SIZE];
+    private final int campSize;
+
+    // Copia a posição de um Board.
+    GridBoard(Board board) {
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                Piece piece = board.getPieceAt(row, col);
+                if (piece != null) grid[row][col] = new Piece(piece.getPlayerId());
+            }
+        }
+        campSize = board.getCampSize();
+    }
+
+    // Mesma regra do Board original: passos de uma casa (fora de cadeia) e saltos simples.
+    List<Point> getValidMoves(int startRow, int startCol, boolean inChainJump) {
+        List<Point> validMoves = new ArrayList<>();
+        if (getPieceAt(startRow, startCol) == null) return validMoves;
+        if (!inChainJump) {
+            for (int r = -1; r <= 1; r++) {
+                for (int c = -1; c <= 1; c++) {
+                    if (r == 0 && c == 0) continue;
+                    if (isSingleStepValid(startRow + r, startCol + c)) validMoves.add(new Point(startRow + r, startCol + c));
+                }
+            }
+        }
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if (dr == 0 && dc == 0) continue;
+                if (isJumpValid(startRow + dr, startCol + dc, startRow + dr * 2, startCol + dc * 2)) {
+                    validMoves.add(new Point(startRow + dr * 2, startCol + dc * 2));
+                }
+            }
+        }
+        return validMoves;
+    }
+
+    /**
+     * Jogadas completas do jogador no formato de Board.packMove: cada passo simples
+     * e cada casa final distinta alcançável por uma cadeia de saltos (exceto a própria origem).
+     */
+    List<Integer> turnMoves(int player) {
+        List<Integer> moves = new ArrayList<>();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                Piece piece = grid[row][col];
+                if (piece == null || piece.getPlayerId() != player) continue;
+                for (Point target : getValidMoves(row, col, false)) {
+                    if (Math.abs(target.x - row) <= 1 && Math.abs(target.y - col) <= 1) {
+                        moves.add(Board.packMove(Board.square(row, col), Board.square(target.x, target.y)));
+                    }
+                }
+                boolean[] reached = new boolean[Board.SQUARES];
+                reached[Board.square(row, col)] = true;
+                collectJumps(row, col, reached);
+                reached[Board.square(row, col)] = false;
+                for (int square = 0; square < Board.SQUARES; square++) {
+                    if (reached[square]) moves.add(Board.packMove(Board.square(row, col), square));
+                }
+            }
+        }
+        return moves;
+    }
+
+    // Percorre a cadeia de saltos movendo a peça de verdade e desfazendo cada salto ao voltar.
+    private void collectJumps(int row, int col, boolean[] reached) {
+        for (Point landing : getValidMoves(row, col, true)) {
+            int square = Board.square(landing.x, landing.y);
+            if (reached[square]) continue;
+            reached[square] = true;
+            performMove(row, col, landing.x, landing.y);
+            collectJumps(landing.x, landing.y, reached);
+            performMove(landing.x, landing.y, row, col);
+        }
+    }
+
+    void performMove(int startRow, int startCol, int endRow, int endCol) {
+        Piece piece = grid[startRow][startCol];
+        grid[startRow][startCol] = null;
+        grid[endRow][endCol] = piece;
+    }
+
+    // O jogador vence com todas as casas do campo do oponente ocupadas por suas peças.
+    boolean checkForWinner(int player) {
+        for (int row = 0; row < campSize; row++) {
+            for (int col = 0; row + col < campSize; col++) {
+                Piece piece = player == 1 ? grid[SIZE - 1 - row][SIZE - 1 - col] : grid[row][col];
+                if (piece == null || piece.getPlayerId() != player) return false;
+            }
+        }
+        return true;
+    }
+
+    private Piece getPieceAt(int row, int col) {
+        return isValidCoordinate(row, col) ? grid[row][col] : null;
+    }
+
+    private boolean isSingleStepValid(int endRow, int endCol) {
+        return isValidCoordinate(endRow, endCol) && grid[endRow][endCol] == null;
+    }
+
+    private boolean isJumpValid(int jumpedRow, int jumpedCol, int landingRow, int landingCol) {
+        return isValidCoordinate(landingRow, landingCol) && grid[landingRow][landingCol] == null
+                && isValidCoordinate(jumpedRow, jumpedCol) && grid[jumpedRow][jumpedCol] != null;
+    }
+
+    private boolean isValidCoordinate(int row, int col) {
+        return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
+    }
+}
@@ -0,0 +1,146 @@
+package br.com.victorsfec.halma.bench;
+
+import br.com.victorsfec.halma.ai.TurnMoves;
+import br.com.victorsfec.halma.game.Board;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Perft: conta as posições folha até a profundidade N a partir de uma posição, com os jogadores alternando.
+ * Cada jogada é um turno completo (passo simples ou casa final de uma cadeia de saltos), como em TurnMoves.
+ * Uma jogada que vence a partida é folha, mesmo antes da profundidade N.
+ *
+ * Serve para medir a vazão do gerador de movimentos (nós por segundo) e, com --verify,
+ * como oráculo de correção contra a implementação de referência em Piece[][] (GridBoard).
+ *
+ * Uso: java -cp HalmaServer.jar br.com.victorsfec.halma.bench.Perft [--depth=N] [--threads=T] [--plies=K] [--seed=S] [--divide] [--verify]
+ */
+public class Perft {
+
+    /**
+     * Conta as folhas da árvore de jogadas (sequencial, sem alocação).
+     * @param moves Um array de jogadas por nível, cada um com pelo menos TurnMoves.capacity(board) posições.
+     */
+    public static long perft(Board board, int player, int depth, int[][] moves, TurnMoves.Scratch scratch) {
+        if (depth == 0) return 1;
+        int[] buffer = moves[depth - 1];
+        int count = TurnMoves.generate(board, player, buffer, scratch);
+        if (depth == 1) return count; // Contagem em bloco: cada jogada do último nível é uma folha.
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(TurnMoves.from(buffer[i]), TurnMoves.to(buffer[i]));
+            nodes += board.checkForWinner(player) ? 1 : perft(board, 3 - player, depth - 1, moves, scratch);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Perft paralelo: as jogadas da raiz são divididas entre as threads do pool,
+     * cada uma com sua própria cópia do tabuleiro.
+     * @return A contagem de folhas abaixo de cada jogada da raiz, na ordem de "rootMoves".
+     */
+    public static long[] divide(ForkJoinPool pool, Board board, int player, int depth, int[] rootMoves, int rootCount)
+            throws InterruptedException, ExecutionException {
+        List<Callable<Long>> tasks = new ArrayList<>(rootCount);
+        for (int i = 0; i < rootCount; i++) {
+            int move = rootMoves[i];
+            tasks.add(() -> {
+                Board copy = new Board(board);
+                copy.makeMove(TurnMoves.from(move), TurnMoves.to(move));
+                if (copy.checkForWinner(player)) return 1L;
+                return perft(copy, 3 - player, depth - 1, newMoveBuffers(copy, depth - 1), new TurnMoves.Scratch());
+            });
+        }
+        long[] counts = new long[rootCount];
+        List<Future<Long>> results = pool.invokeAll(tasks);
+        for (int i = 0; i < rootCount; i++) counts[i] = results.get(i).get();
+        return counts;
+    }
+
+    // Perft da implementação de referência, jogando cada jogada salto a salto na matriz.
+    static long referencePerft(GridBoard board, int player, int depth) {
+        if (depth == 0) return 1;
+        List<Integer> moves = board.turnMoves(player);
+        if (depth == 1) return moves.size();
+        long nodes = 0;
+        for (int move : moves) {
+            int from = Board.moveFrom(move);
+            int to = Board.moveTo(move);
+            board.performMove(Board.rowOf(from), Board.colOf(from), Board.rowOf(to), Board.colOf(to));
+            nodes += board.checkForWinner(player) ? 1 : referencePerft(board, 3 - player, depth - 1);
+            board.performMove(Board.rowOf(to), Board.colOf(to), Board.rowOf(from), Board.colOf(from));
+        }
+        return nodes;
+    }
+
+    private static int[][] newMoveBuffers(Board board, int depth) {
+        int[][] moves = new int[Math.max(depth, 1)][];
+        for (int i = 0; i < moves.length; i++) moves[i] = new int[TurnMoves.capacity(board)];
+        return moves;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int depth = 3;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int plies = 0;
+        long seed = 0x48414C4D41L;
+        boolean divide = false;
+        boolean verify = false;
+        for (String arg : args) {
+            String name = arg.contains("=") ? arg.substring(2, arg.indexOf('=')) : arg.substring(2);
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            switch (name) {
+                case "depth": depth = Integer.parseInt(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "plies": plies = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                case "divide": divide = true; break;
+                case "verify": verify = true; break;
+                default:
+                    System.err.println("Opção desconhecida: " + arg);
+                    System.exit(1);
+            }
+        }
+
+        // Posição inicial, opcionalmente avançada por jogadas aleatórias guiadas com semente fixa.
+        Board board = new Board();
+        int played = BoardBenchmark.playGuided(board, new SplittableRandom(seed), plies, Integer.MAX_VALUE);
+        int player = played % 2 == 0 ? 1 : 2;
+        System.out.println("Posição após " + played + " jogadas, vez do jogador " + player + ", " + threads + " thread(s).");
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int[] rootMoves = new int[TurnMoves.capacity(board)];
+        int rootCount = TurnMoves.generate(board, player, rootMoves, new TurnMoves.Scratch());
+        boolean mismatch = false;
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long[] counts = divide(pool, board, player, d, rootMoves, rootCount);
+            long elapsed = System.nanoTime() - start;
+            long nodes = 0;
+            for (long count : counts) nodes += count;
+            System.out.printf("perft(%d) = %,d  %.3f s  %,.0f nós/s%n", d, nodes, elapsed / 1e9, nodes / (elapsed / 1e9));
+
+            if (divide && d == depth) {
+                for (int i = 0; i < rootCount; i++) {
+                    int from = TurnMoves.from(rootMoves[i]);
+                    int to = TurnMoves.to(rootMoves[i]);
+                    System.out.printf("  (%d,%d)->(%d,%d): %,d%n", Board.rowOf(from), Board.colOf(from), Board.rowOf(to), Board.colOf(to), counts[i]);
+                }
+            }
+            if (verify) {
+                long reference = referencePerft(new GridBoard(board), player, d);
+                boolean ok = reference == nodes;
+                mismatch |= !ok;
+                System.out.printf("  referência Piece[][] = %,d %s%n", reference, ok ? "OK" : "DIVERGENTE");
+            }
+        }
+        pool.shutdown();
+        if (mismatch) System.exit(2);
+    }
+}
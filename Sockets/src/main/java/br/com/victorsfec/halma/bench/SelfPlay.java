@@ -0,0 +1,227 @@
+package br.com.victorsfec.halma.bench;
+
+import br.com.victorsfec.halma.ai.GreedyMover;
+import br.com.victorsfec.halma.ai.MctsEngine;
+import br.com.victorsfec.halma.ai.MoveSearcher;
+import br.com.victorsfec.halma.ai.RandomMover;
+import br.com.victorsfec.halma.ai.SearchEngine;
+import br.com.victorsfec.halma.ai.TranspositionTable;
+import br.com.victorsfec.halma.ai.TurnMoves;
+import br.com.victorsfec.halma.game.Board;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simulação de partidas completas entre duas estratégias, direto sobre o Board
+ * (sem GameSession, sockets ou Swing), usando todos os núcleos.
+ * As estratégias A e B alternam os lados a cada partida, já que o jogador 1 começa.
+ * Partidas que chegam ao limite de jogadas contam como empate e são listadas,
+ * pois costumam indicar peças andando em círculos.
+ *
+ * Estratégias: random, greedy, alphabeta (usa --time ou --depth) e mcts (usa --time).
+ * Uso: java -cp HalmaServer.jar br.com.victorsfec.halma.bench.SelfPlay [--a=greedy] [--b=random] [--games=N] [--threads=T]
+ *      [--time=ms] [--depth=N] [--max-plies=N] [--seed=S]
+ */
+public class SelfPlay {
+    // Quantidade de partidas empatadas (limite de jogadas) listadas no relatório.
+    private static final int REPORTED_DRAWS = 10;
+
+    private final String strategyA;
+    private final String strategyB;
+    private final long timeMillis;
+    private final int depth;
+    private final int maxPlies;
+    private final long seed;
+
+    public SelfPlay(String strategyA, String strategyB, long timeMillis, int depth, int maxPlies, long seed) {
+        this.strategyA = strategyA;
+        this.strategyB = strategyB;
+        this.timeMillis = timeMillis;
+        this.depth = depth;
+        this.maxPlies = maxPlies;
+        this.seed = seed;
+        // Falha cedo se algum nome de estratégia for inválido.
+        create(strategyA, 0);
+        create(strategyB, 0);
+    }
+
+    // Estatísticas de um worker; os workers não compartilham nada e o resultado é somado no final.
+    static final class Stats {
+        long games;
+        long winsA;
+        long winsB;
+        long draws;
+        long plies;
+        int shortest = Integer.MAX_VALUE;
+        int longest;
+        long nanosA;
+        long nanosB;
+        long movesA;
+        long movesB;
+        final List<Integer> drawnGames = new ArrayList<>();
+
+        void add(Stats other) {
+            games += other.games;
+            winsA += other.winsA;
+            winsB += other.winsB;
+            draws += other.draws;
+            plies += other.plies;
+            shortest = Math.min(shortest, other.shortest);
+            longest = Math.max(longest, other.longest);
+            nanosA += other.nanosA;
+            nanosB += other.nanosB;
+            movesA += other.movesA;
+            movesB += other.movesB;
+            drawnGames.addAll(other.drawnGames);
+        }
+    }
+
+    /**
+     * Joga "games" partidas em "threads" threads. A partida i fica sempre com o worker i % threads,
+     * então, com os mesmos parâmetros, o resultado é reproduzível.
+     */
+    public Stats run(int games, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Stats>> results = new ArrayList<>();
+            for (int w = 0; w < threads; w++) {
+                int worker = w;
+                results.add(executor.submit(() -> {
+                    MoveSearcher a = create(strategyA, seed + worker * 2L);
+                    MoveSearcher b = create(strategyB, seed + worker * 2L + 1);
+                    Stats stats = new Stats();
+                    for (int game = worker; game < games; game += threads) {
+                        playGame(game, a, b, stats);
+                    }
+                    return stats;
+                }));
+            }
+            Stats total = new Stats();
+            for (Future<Stats> result : results) total.add(result.get());
+            total.drawnGames.sort(null);
+            return total;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Joga uma partida; nas partidas pares A é o jogador 1, nas ímpares é o jogador 2.
+    private void playGame(int game, MoveSearcher a, MoveSearcher b, Stats stats) {
+        Board board = new Board();
+        int playerA = game % 2 == 0 ? 1 : 2;
+        int player = 1;
+        int winner = 0;
+        int plies = 0;
+        while (plies < maxPlies) {
+            boolean turnOfA = player == playerA;
+            long start = System.nanoTime();
+            int move = (turnOfA ? a : b).findBestMove(board, player, timeMillis);
+            long elapsed = System.nanoTime() - start;
+            if (turnOfA) {
+                stats.nanosA += elapsed;
+                stats.movesA++;
+            } else {
+                stats.nanosB += elapsed;
+                stats.movesB++;
+            }
+            if (move == TurnMoves.NONE) {
+                winner = 3 - player; // Sem jogadas: equivale a desistir.
+                break;
+            }
+            board.makeMove(TurnMoves.from(move), TurnMoves.to(move));
+            plies++;
+            if (board.checkForWinner(player)) {
+                winner = player;
+                break;
+            }
+            player = 3 - player;
+        }
+
+        stats.games++;
+        stats.plies += plies;
+        stats.shortest = Math.min(stats.shortest, plies);
+        stats.longest = Math.max(stats.longest, plies);
+        if (winner == 0) {
+            stats.draws++;
+            if (stats.drawnGames.size() < REPORTED_DRAWS) stats.drawnGames.add(game);
+        } else if (winner == playerA) {
+            stats.winsA++;
+        } else {
+            stats.winsB++;
+        }
+    }
+
+    private MoveSearcher create(String name, long strategySeed) {
+        switch (name) {
+            case "random":
+                return new RandomMover(strategySeed);
+            case "greedy":
+                return new GreedyMover(strategySeed);
+            case "alphabeta":
+                SearchEngine engine = new SearchEngine(new TranspositionTable(16));
+                if (depth <= 0) return engine;
+                // Profundidade fixa: o tempo vira só um limite de segurança (uma hora).
+                return (board, player, ignored) -> engine.findBestMove(board, player, 3_600_000L, depth);
+            case "mcts":
+                return new MctsEngine(1);
+            default:
+                throw new IllegalArgumentException("Estratégia desconhecida: " + name + " (use random, greedy, alphabeta ou mcts)");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String a = "greedy";
+        String b = "random";
+        int games = 1_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long time = 10;
+        int depth = 0;
+        int maxPlies = 1_000;
+        long seed = 0x48414C4D41L;
+        SelfPlay selfPlay;
+        try {
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Opção inválida: " + arg + " (use --nome=valor)");
+                }
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "a": a = value; break;
+                    case "b": b = value; break;
+                    case "games": games = Integer.parseInt(value); break;
+                    case "threads": threads = Integer.parseInt(value); break;
+                    case "time": time = Long.parseLong(value); break;
+                    case "depth": depth = Integer.parseInt(value); break;
+                    case "max-plies": maxPlies = Integer.parseInt(value); break;
+                    case "seed": seed = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("Opção desconhecida: " + name);
+                }
+            }
+            selfPlay = new SelfPlay(a, b, time, depth, maxPlies, seed);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        System.out.println("A = " + a + ", B = " + b + ", " + games + " partidas em " + threads + " thread(s).");
+        long start = System.nanoTime();
+        Stats stats = selfPlay.run(games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Vitórias A: %d (%.1f%%)  Vitórias B: %d (%.1f%%)  Empates (limite de %d jogadas): %d%n",
+                stats.winsA, 100.0 * stats.winsA / stats.games, stats.winsB, 100.0 * stats.winsB / stats.games, maxPlies, stats.draws);
+        System.out.printf("Duração: média %.1f, mínima %d, máxima %d jogadas%n",
+                (double) stats.plies / stats.games, stats.shortest, stats.longest);
+        System.out.printf("Tempo por jogada: A %.3f ms, B %.3f ms%n",
+                stats.nanosA / 1e6 / Math.max(1, stats.movesA), stats.nanosB / 1e6 / Math.max(1, stats.movesB));
+        System.out.printf("%.2f s, %.1f partidas/s, %,.0f jogadas/s%n", seconds, stats.games / seconds, stats.plies / seconds);
+        if (!stats.drawnGames.isEmpty()) {
+            System.out.println("Partidas empatadas (índices): " + stats.drawnGames.subList(0, Math.min(REPORTED_DRAWS, stats.drawnGames.size())));
+        }
+    }
+}
@@ -32,6 +32,8 @@ public class GameFrame extends JFrame {
 
      // Lista para armazenar e exibir os movimentos válidos para a peça selecionada.
     private List<Point> validMoves = new ArrayList<>();
+    // Pousos de cada salto em cadeia possível da peça selecionada (sem a origem), para jogar a cadeia em uma mensagem.
+    private List<List<Point>> jumpPaths = new ArrayList<>();
 
     public String getPlayerName() {
         return this.playerName;
@@ -170,6 +172,31 @@ public class GameFrame extends JFrame {
         boardPanel.repaint();
     }
 
+    // Armazena os caminhos de salto em cadeia da peça selecionada; os destinos também são destacados.
+    public void showJumpPaths(List<List<Point>> paths) {
+        this.jumpPaths = paths;
+        boardPanel.repaint();
+    }
+
+    // Caminho completo (peça selecionada seguida dos pousos) até a casa, ou null se ela não for destino de um salto.
+    private List<Point> jumpPathTo(int row, int col) {
+        for (List<Point> landings : jumpPaths) {
+            Point target = landings.get(landings.size() - 1);
+            if (target.x != row || target.y != col) continue;
+            List<Point> path = new ArrayList<>(landings.size() + 1);
+            path.add(new Point(selectedRow, selectedCol));
+            path.addAll(landings);
+            return path;
+        }
+        return null;
+    }
+
+    // Limpa os destinos destacados da peça selecionada.
+    private void clearTargets() {
+        validMoves.clear();
+        jumpPaths.clear();
+    }
+
     // Método para definir o nome do jogador e atualizar o título da janela.
     public void setPlayerName(String name) { 
         this.playerName = name;
@@ -187,7 +214,7 @@ public class GameFrame extends JFrame {
         this.myTurn = myTurn;
         updateStatus(myTurn ? "Seu turno, " + playerName + "." : "Turno de " + opponentName + ".");
         if (!myTurn) {
-            validMoves.clear();
+            clearTargets();
             boardPanel.repaint();
         }
     }
@@ -202,19 +229,37 @@ public class GameFrame extends JFrame {
             this.selectedRow = endRow;
             this.selectedCol = endCol;
             
-            // Solicita os novos movimentos válidos a partir da nova posição.
+            // Solicita os novos movimentos válidos a partir da nova posição (e o resto da cadeia, para jogá-lo de uma vez).
             client.sendGetValidMoves(endRow, endCol); 
+            client.sendGetJumpPaths(endRow, endCol);
             updateStatus("Seu turno: Continue pulando com a peça selecionada.");
         } else {
             // Se o jogador escolher "Não", envia o comando para encerrar a cadeia de saltos.
             client.sendEndChainJump();
             this.selectedRow = -1;
             this.selectedCol = -1;
-            validMoves.clear();
+            clearTargets();
         }
         boardPanel.repaint(); // Redesenha o tabuleiro para refletir o estado atual.
     }
 
+    /**
+     * Aplica o estado completo recebido ao retomar uma partida (GAME_STATE).
+     * @param owners Dono de cada casa (0 se vazia).
+     * @param chainRow Casa da peça em salto em cadeia, ou -1 se não houver.
+     */
+    public void restoreState(int[] owners, int p1Moves, int p2Moves, int currentPlayer, int chainRow, int chainCol) {
+        board.setPieces(owners);
+        this.selectedRow = -1;
+        this.selectedCol = -1;
+        clearTargets();
+        updateScores(p1Moves, p2Moves);
+        setMyTurn(currentPlayer == playerId);
+        boardPanel.repaint();
+        // O salto em cadeia interrompido pela queda é oferecido de novo.
+        if (myTurn && chainRow >= 0) updateBoardAfterJumpAndPrompt(chainRow, chainCol);
+    }
+
     //Define o ID do jogador.
     public void setPlayerId(int id) {
         this.playerId = id;
@@ -229,7 +274,7 @@ public class GameFrame extends JFrame {
         board.performMove(startRow, startCol, endRow, endCol);
         this.selectedRow = -1;
         this.selectedCol = -1;
-        validMoves.clear(); 
+        clearTargets(); 
         boardPanel.repaint();
     }
 
@@ -238,7 +283,7 @@ public class GameFrame extends JFrame {
         board.performMove(startRow, startCol, endRow, endCol);
         this.selectedRow = endRow;
         this.selectedCol = endCol;
-        validMoves.clear(); 
+        clearTargets(); 
         boardPanel.repaint();
     }
 
@@ -293,19 +338,27 @@ public class GameFrame extends JFrame {
                         if (clickedPiece != null && clickedPiece.getPlayerId() == playerId) {
                             selectedRow = row;
                             selectedCol = col;
-                             // Solicita os movimentos válidos para esta peça ao servidor.
+                             // Solicita os movimentos válidos para esta peça ao servidor, e os caminhos de salto em cadeia.
                             client.sendGetValidMoves(row, col); 
+                            client.sendGetJumpPaths(row, col);
                         }
                     } else { // Se uma peça já estiver selecionada verifica se o clique foi em um alvo válido.
+                        List<Point> path = jumpPathTo(row, col);
                         boolean isValidTarget = validMoves.stream().anyMatch(p -> p.x == row && p.y == col);
-                        if (isValidTarget) {
+                        if (path != null) {
+                            // Destino de um salto em cadeia: a cadeia inteira vai em uma única mensagem e encerra a jogada.
+                            client.sendMovePath(path);
+                            selectedRow = -1;
+                            selectedCol = -1;
+                            clearTargets();
+                        } else if (isValidTarget) {
                             //Se for um alvo válido, envia o movimento para o servidor.
                             client.sendMove(selectedRow, selectedCol, row, col);
                         } else {
                             // Se não for um alvo válido, limpa a seleção.
                             selectedRow = -1;
                             selectedCol = -1;
-                            validMoves.clear();
+                            clearTargets();
                         }
                     }
                     repaint(); // Redesenha o painel para refletir a mudança de estado (seleção/movimento).
@@ -434,7 +487,9 @@ public class GameFrame extends JFrame {
             // Define a cor e o traço para destacar os movimentos válidos.
             g2d.setColor(new Color(0, 255, 0, 150));
             g2d.setStroke(new BasicStroke(3));
-            for (Point move : validMoves) {
+            List<Point> targets = new ArrayList<>(validMoves);
+            for (List<Point> path : jumpPaths) targets.add(path.get(path.size() - 1));
+            for (Point move : targets) {
                 // Para cada movimento, desenha uma elipse verde na casa de destino.
                 int moveRow = move.x;
                 int moveCol = move.y;
@@ -1,20 +1,32 @@
 package br.com.victorsfec.halma.client;
 
+import br.com.victorsfec.halma.game.Board;
+import br.com.victorsfec.halma.shared.BinaryProtocol;
 import br.com.victorsfec.halma.shared.Protocol;
 import javax.swing.*;
 import java.awt.*;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class HalmaClient {
     private Socket socket; // O socket para a comunicação com o servidor.
     private PrintWriter out; // O PrintWriter para enviar mensagens ao servidor.
     private BufferedReader in;  // O BufferedReader para receber mensagens do servidor.
+    private OutputStream rawOut; // Stream do socket usado para os quadros binários.
+    private volatile boolean binary = false; // O servidor confirmou o protocolo binário (BinaryProtocol).
     private final GameFrame gameFrame; // A referência final para a janela principal do jogo.
     private String lastGameStats; // Armazena as últimas estatísticas recebidas do jogo.
     private volatile boolean gameIsOver = false; //Indicar se o jogo terminou. Garante que as alterações sejam visíveis por todas as threads.
@@ -24,6 +36,7 @@ public class HalmaClient {
     private String serverAddress;
     private int serverPort;
     private volatile boolean isTryingToReconnect = false; //Evitar múltiplas tentativas de reconexão simultâneas.
+    private volatile String resumeToken; // Token recebido em RESUME_TOKEN para voltar à partida depois de uma queda (null se não houver).
 
     public HalmaClient() {
         gameFrame = new GameFrame(this); // Cria a instância da janela do jogo, passando uma referência a este cliente.
@@ -103,18 +116,11 @@ public class HalmaClient {
 
                     Thread.sleep(5000); // Espera 5 segundos
 
-                    // Tenta estabelecer uma nova conexão com o servidor.
-                    socket = new Socket(serverAddress, serverPort);
-                    out = new PrintWriter(socket.getOutputStream(), true);
-                    in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                    
-                    // Se reconectado, reenvia o nome para o servidor
-                    out.println(Protocol.SET_NAME + Protocol.SEPARATOR + playerName);
-                    
-                    // Inicia um novo listener para ouvir as mensagens do servidor na nova conexão.
-                    new Thread(new ServerListener()).start(); // Inicia um novo listener
+                    // Tenta estabelecer uma nova conexão com o servidor; com um token, pede para voltar à mesma partida.
+                    boolean resuming = resumeToken != null;
+                    openConnection(playerName, serverAddress, serverPort);
 
-                    SwingUtilities.invokeLater(() -> gameFrame.updateStatus("Reconectado! Aguardando oponente..."));
+                    SwingUtilities.invokeLater(() -> gameFrame.updateStatus(resuming ? "Reconectado! Retomando a partida..." : "Reconectado! Aguardando oponente..."));
                     
                     // Desativa a flag de reconexão e sai do loop.
                     isTryingToReconnect = false; // Sai do loop de reconexão
@@ -134,20 +140,29 @@ public class HalmaClient {
 
     //Implementa Runnable para ouvir as mensagens do servidor em uma thread separada.
     private class ServerListener implements Runnable {
+        private final InputStream input;
+
+        ServerListener(InputStream input) {
+            this.input = new BufferedInputStream(input);
+        }
+
         @Override
         public void run() {
             try {
+                // A primeira linha diz se o servidor aceitou o protocolo binário; um servidor antigo já responde em texto.
+                String firstLine = readFirstLine();
+                if (BinaryProtocol.BINARY_ACK.equals(firstLine)) {
+                    binary = true;
+                    readFrames();
+                    return;
+                }
+                if (firstLine != null) receive(firstLine);
+                in = new BufferedReader(new InputStreamReader(input));
+
                 //Lê continuamente as mensagens do servidor. readLine() bloqueia até receber uma mensagem.
                 String serverMessage;
                 while ((serverMessage = in.readLine()) != null) {
-                    // Imprime a mensagem recebida no console do cliente para depuração.
-                    System.out.println("CLIENT (" + gameFrame.getPlayerName() + "): Mensagem recebida: " + serverMessage);
-                    
-                    // Armazena a mensagem em uma variável final para ser usada dentro da expressão lambda.
-                    final String messageForUI = serverMessage;
-
-                    // Agenda o processamento da mensagem para garantir a segurança da thread da GUI.
-                    SwingUtilities.invokeLater(() -> processServerMessage(messageForUI));
+                    receive(serverMessage);
                 }
             } catch (IOException e) {
                 // Se a conexão for perdida, inicia a tentativa de reconexão
@@ -158,6 +173,77 @@ public class HalmaClient {
             }
         }
 
+        private void receive(String serverMessage) {
+            // O heartbeat é respondido aqui mesmo, sem passar pela thread da GUI.
+            if (Protocol.PING.equals(serverMessage)) {
+                sendPong();
+                return;
+            }
+            // Imprime a mensagem recebida no console do cliente para depuração.
+            System.out.println("CLIENT (" + gameFrame.getPlayerName() + "): Mensagem recebida: " + serverMessage);
+
+            // Agenda o processamento da mensagem para garantir a segurança da thread da GUI.
+            SwingUtilities.invokeLater(() -> processServerMessage(serverMessage));
+        }
+
+        // Lê a primeira linha sem um Reader, para não consumir os quadros binários que vêm depois dela.
+        private String readFirstLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = input.read()) != '\n') {
+                if (b < 0) return line.size() > 0 ? line.toString(StandardCharsets.UTF_8) : null;
+                if (b != '\r') line.write(b);
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        // Lê quadros binários até a conexão cair; cada quadro é processado na thread da GUI.
+        private void readFrames() throws IOException {
+            DataInputStream frames = new DataInputStream(input);
+            byte[] frame = new byte[BinaryProtocol.MAX_FRAME];
+            while (true) {
+                int length = frames.readUnsignedShort();
+                if (length == 0) throw new EOFException("Quadro vazio.");
+                frames.readFully(frame, 0, length);
+                if (frame[0] == BinaryProtocol.TEXT) {
+                    receive(new String(frame, 1, length - 1, StandardCharsets.UTF_8));
+                } else {
+                    byte[] copy = Arrays.copyOf(frame, length);
+                    SwingUtilities.invokeLater(() -> processServerFrame(copy));
+                }
+            }
+        }
+
+        // Equivalente binário de processServerMessage para as mensagens frequentes.
+        private void processServerFrame(byte[] frame) {
+            if (gameIsOver) return;
+            switch (frame[0]) {
+                case BinaryProtocol.UPDATE_SCORE:
+                    gameFrame.updateScores(((frame[1] & 0xFF) << 8) | (frame[2] & 0xFF), ((frame[3] & 0xFF) << 8) | (frame[4] & 0xFF));
+                    break;
+                case BinaryProtocol.VALID_MOVE:
+                case BinaryProtocol.OPPONENT_MOVED:
+                    gameFrame.updateBoard(Board.rowOf(frame[1]), Board.colOf(frame[1]), Board.rowOf(frame[2]), Board.colOf(frame[2]));
+                    break;
+                case BinaryProtocol.JUMP_MOVE:
+                    gameFrame.updateBoardAndKeepSelection(Board.rowOf(frame[1]), Board.colOf(frame[1]), Board.rowOf(frame[2]), Board.colOf(frame[2]));
+                    break;
+                case BinaryProtocol.CHAIN_JUMP_OFFER:
+                    gameFrame.updateBoardAfterJumpAndPrompt(Board.rowOf(frame[1]), Board.colOf(frame[1]));
+                    break;
+                case BinaryProtocol.VALID_MOVES_MASK:
+                    List<Point> moves = new ArrayList<>();
+                    for (int square = 0; square < Board.SQUARES; square++) {
+                        if (BinaryProtocol.maskContains(frame, 1, square)) moves.add(new Point(Board.rowOf(square), Board.colOf(square)));
+                    }
+                    gameFrame.showValidMoves(moves);
+                    break;
+                case BinaryProtocol.SET_TURN:
+                    gameFrame.setMyTurn(frame[1] == 1);
+                    break;
+            }
+        }
+
         private void processServerMessage(String message) {
             if (gameIsOver) return; // Se o jogo já terminou, ignora a mensagem.
 
@@ -210,6 +296,21 @@ public class HalmaClient {
                     }
                     gameFrame.showValidMoves(moves);
                     break;
+                case Protocol.JUMP_PATHS_LIST:
+                    // Caminhos de salto em cadeia: pousos "linha,coluna" separados por '>', caminhos por ';'.
+                    List<List<Point>> paths = new ArrayList<>();
+                    if (!data.isEmpty()) {
+                        for (String pathText : data.split(";")) {
+                            List<Point> path = new ArrayList<>();
+                            for (String square : pathText.split(">")) {
+                                String[] squareCoords = square.split(",");
+                                path.add(new Point(Integer.parseInt(squareCoords[0]), Integer.parseInt(squareCoords[1])));
+                            }
+                            paths.add(path);
+                        }
+                    }
+                    gameFrame.showJumpPaths(paths);
+                    break;
                 case Protocol.VICTORY:
                     // Lida com o fim do jogo em caso de vitória.
                     handleGameEnd("Parabéns, você ganhou!", "Fim de jogo", JOptionPane.INFORMATION_MESSAGE);
@@ -231,6 +332,7 @@ public class HalmaClient {
                     // Lida com o novo formato da mensagem WELCOME (ID:Nome)
                     String[] welcomeParts = data.split(Protocol.SEPARATOR, 2);
                     gameFrame.setPlayerId(Integer.parseInt(welcomeParts[0]));
+                    resumeToken = null; // Partida nova: o token, se houver, vem em seguida (RESUME_TOKEN).
                     if (welcomeParts.length > 1) {
                         String newPlayerName = welcomeParts[1];
                         // Atualiza o nome no cliente e na interface gráfica
@@ -238,12 +340,26 @@ public class HalmaClient {
                         gameFrame.setPlayerName(newPlayerName);
                     }
                     break;
+                case Protocol.RESUME_TOKEN:
+                    // Guarda o token para voltar a esta partida se a conexão cair.
+                    resumeToken = data.isEmpty() ? null : data;
+                    break;
                 case Protocol.OPPONENT_FOUND:
                     // Define o nome do oponente e atualiza o status.
                     String opponentName = data.isEmpty() ? "Oponente" : data;
                     gameFrame.setOpponentName(opponentName);
                     gameFrame.updateStatus("Oponente encontrado: " + opponentName + ". Iniciando partida...");
                     break;
+                case Protocol.GAME_STATE:
+                    // Partida retomada: substitui o tabuleiro, o placar e o turno pelo estado do servidor.
+                    String[] state = data.split(Protocol.SEPARATOR);
+                    if (state.length >= 6 && state[5].length() == Board.SQUARES) {
+                        int[] owners = new int[Board.SQUARES];
+                        for (int square = 0; square < Board.SQUARES; square++) owners[square] = state[5].charAt(square) - '0';
+                        gameFrame.restoreState(owners, Integer.parseInt(state[1]), Integer.parseInt(state[2]),
+                                Integer.parseInt(state[0]), Integer.parseInt(state[3]), Integer.parseInt(state[4]));
+                    }
+                    break;
                 case Protocol.SET_TURN:
                     // Define de quem é o turno
                     gameFrame.setMyTurn("YOUR_TURN".equals(data));
@@ -290,20 +406,34 @@ public class HalmaClient {
         }
     }
 
-    public void connect(String playerName, String serverAddress, int port) {
-        try {
-            // Cria um novo socket para o endereço e porta especificados.
-            socket = new Socket(serverAddress, port);
-
-            // Inicializa os streams de entrada e saída.
-            out = new PrintWriter(socket.getOutputStream(), true);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+    /**
+     * Abre o socket, pede o protocolo binário junto com o nome e inicia o listener.
+     * Até a resposta chegar a conexão segue em texto; o listener decide o modo pela primeira linha recebida.
+     */
+    private void openConnection(String playerName, String serverAddress, int port) throws IOException {
+        // Cria um novo socket para o endereço e porta especificados.
+        socket = new Socket(serverAddress, port);
+
+        // Inicializa os streams de saída; o de entrada é lido pelo listener.
+        binary = false;
+        out = new PrintWriter(socket.getOutputStream(), true);
+        rawOut = socket.getOutputStream();
+
+        // Envia a primeira mensagem com o nome do jogador (e o token, para voltar à partida depois de uma queda).
+        String token = resumeToken;
+        if (token != null && !gameIsOver) {
+            out.println(BinaryProtocol.RESUME_BINARY + Protocol.SEPARATOR + token + Protocol.SEPARATOR + playerName);
+        } else {
+            out.println(BinaryProtocol.SET_NAME_BINARY + Protocol.SEPARATOR + playerName);
+        }
 
-            // Envia a primeira mensagem com o nome do jogador.
-            out.println(Protocol.SET_NAME + Protocol.SEPARATOR + playerName);
+        // Inicia a thread listener do servidor.
+        new Thread(new ServerListener(socket.getInputStream())).start();
+    }
 
-             // Inicia a thread listener do servidor.
-            new Thread(new ServerListener()).start();
+    public void connect(String playerName, String serverAddress, int port) {
+        try {
+            openConnection(playerName, serverAddress, port);
 
             // Atualiza o status na GUI.
             gameFrame.updateStatus("Conectado. Aguardando por um oponente...");
@@ -320,39 +450,91 @@ public class HalmaClient {
     // Método para enviar um comando de movimento ao servidor.
     public void sendMove(int startRow, int startCol, int endRow, int endCol) {
         // Se o stream de saída estiver ativo, envia a mensagem formatada.
-        if (out != null) {
+        if (binary) {
+            sendFrame(BinaryProtocol.move(BinaryProtocol.MOVE, Board.square(startRow, startCol), Board.square(endRow, endCol)));
+        } else if (out != null) {
             out.println(Protocol.MOVE + Protocol.SEPARATOR + startRow + Protocol.SEPARATOR + startCol + Protocol.SEPARATOR + endRow + Protocol.SEPARATOR + endCol);
         }
     }
     
+    // Método para enviar um salto em cadeia completo (origem seguida de cada pouso) em uma única mensagem.
+    public void sendMovePath(List<Point> path) {
+        if (binary) {
+            int[] squares = new int[path.size()];
+            for (int i = 0; i < squares.length; i++) squares[i] = Board.square(path.get(i).x, path.get(i).y);
+            sendFrame(BinaryProtocol.squares(BinaryProtocol.MOVE_PATH, squares, squares.length));
+        } else if (out != null) {
+            StringBuilder message = new StringBuilder(Protocol.MOVE_PATH);
+            for (Point square : path) {
+                message.append(Protocol.SEPARATOR).append(square.x).append(Protocol.SEPARATOR).append(square.y);
+            }
+            out.println(message);
+        }
+    }
+
     // Método para enviar uma mensagem de chat ao servidor.
     public void sendChatMessage(String message) {
-        if (out != null) {
+        if (binary) {
+            sendFrame(BinaryProtocol.text(Protocol.CHAT + Protocol.SEPARATOR + message));
+        } else if (out != null) {
             out.println(Protocol.CHAT + Protocol.SEPARATOR + message);
         }
     }
 
     // Método para enviar um comando de desistência ao servidor.
     public void sendForfeit() {
-        if (out != null) {
+        if (binary) {
+            sendFrame(BinaryProtocol.frame(BinaryProtocol.FORFEIT));
+        } else if (out != null) {
             out.println(Protocol.FORFEIT);
         }
     }
 
     // Método para enviar um comando para encerrar um salto em cadeia.
     public void sendEndChainJump() {
-        if (out != null) {
+        if (binary) {
+            sendFrame(BinaryProtocol.frame(BinaryProtocol.END_CHAIN_JUMP));
+        } else if (out != null) {
             out.println(Protocol.END_CHAIN_JUMP);
         }
     }
 
     // Método para solicitar os movimentos válidos de uma peça ao servidor.
     public void sendGetValidMoves(int row, int col) {
-        if (out != null) {
+        if (binary) {
+            sendFrame(BinaryProtocol.square(BinaryProtocol.GET_VALID_MOVES, Board.square(row, col)));
+        } else if (out != null) {
             out.println(Protocol.GET_VALID_MOVES + Protocol.SEPARATOR + row + Protocol.SEPARATOR + col);
         }
     }
 
+    // Método para solicitar os caminhos de salto em cadeia de uma peça (destinos e pousos de cada um).
+    public void sendGetJumpPaths(int row, int col) {
+        if (binary) {
+            sendFrame(BinaryProtocol.square(BinaryProtocol.GET_JUMP_PATHS, Board.square(row, col)));
+        } else if (out != null) {
+            out.println(Protocol.GET_JUMP_PATHS + Protocol.SEPARATOR + row + Protocol.SEPARATOR + col);
+        }
+    }
+
+    // Responde ao heartbeat do servidor.
+    private void sendPong() {
+        if (binary) {
+            sendFrame(BinaryProtocol.text(Protocol.PONG));
+        } else if (out != null) {
+            out.println(Protocol.PONG);
+        }
+    }
+
+    // Envia um quadro binário; uma falha aparece para o listener, que cuida da reconexão.
+    private synchronized void sendFrame(byte[] frame) {
+        try {
+            rawOut.write(frame);
+        } catch (IOException e) {
+            System.err.println("CLIENT: Erro ao enviar para o servidor: " + e.getMessage());
+        }
+    }
+
     // Ponto de entrada da aplicação cliente.
     public static void main(String[] args) {
          // Agenda a criação da instância do HalmaClient na Event Dispatch Thread do Swing.
@@ -0,0 +1,129 @@
+package br.com.victorsfec.halma.server;
+
+import br.com.victorsfec.halma.ai.MoveSearcher;
+import br.com.victorsfec.halma.ai.SearchEngine;
+import br.com.victorsfec.halma.ai.TranspositionTable;
+import br.com.victorsfec.halma.ai.TurnMoves;
+import br.com.victorsfec.halma.game.Board;
+import br.com.victorsfec.halma.shared.Protocol;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Jogador virtual controlado pelo servidor.
+ * Para a GameSession ele é um ClientHandler comum: recebe as mesmas mensagens do protocolo
+ * (em sendMessage) e responde chamando processMessage, como faria a thread de um cliente real.
+ * A busca (sequencial ou paralela, conforme o MoveSearcher) é disparada no executor limitado do bot,
+ * nunca na thread da sessão.
+ */
+public class BotClientHandler extends ClientHandler {
+    // Profundidade usada quando o executor está cheio e o bot precisa jogar sem pensar.
+    private static final int FALLBACK_DEPTH = 1;
+    private static final int FALLBACK_TABLE_BITS = 10;
+
+    private final ExecutorService executor;
+    private final long thinkTimeMillis;
+    private final MoveSearcher engine;
+    private final TurnMoves.Scratch scratch = new TurnMoves.Scratch();
+    private final Board board = new Board(); // Cópia local do tabuleiro, atualizada pelas mensagens da sessão.
+    private int playerId;
+    private volatile boolean gameOver = false;
+
+    public BotClientHandler(ExecutorService executor, MoveSearcher engine, long thinkTimeMillis) {
+        super("Bot Halma");
+        this.executor = executor;
+        this.engine = engine;
+        this.thinkTimeMillis = thinkTimeMillis;
+    }
+
+    // O bot não tem conexão que possa cair.
+    @Override
+    protected boolean isConnected() {
+        return true;
+    }
+
+    // Recebe as mensagens que a sessão enviaria ao cliente (o bot não tem fila de saída).
+    @Override
+    protected void sendMessage(String message, OutboundQueue.Kind kind) {
+        String[] parts = message.split(Protocol.SEPARATOR, 2);
+        String data = parts.length > 1 ? parts[1] : "";
+        switch (parts[0]) {
+            case Protocol.WELCOME:
+                playerId = Integer.parseInt(data.split(Protocol.SEPARATOR, 2)[0]);
+                break;
+            case Protocol.VALID_MOVE:
+            case Protocol.JUMP_MOVE:
+            case Protocol.OPPONENT_MOVED:
+                // Mantém o tabuleiro local igual ao da sessão.
+                String[] coords = data.split(Protocol.SEPARATOR);
+                board.performMove(Integer.parseInt(coords[0]), Integer.parseInt(coords[1]), Integer.parseInt(coords[2]), Integer.parseInt(coords[3]));
+                break;
+            case Protocol.SET_TURN:
+                if ("YOUR_TURN".equals(data)) think();
+                break;
+            case Protocol.CHAIN_JUMP_OFFER:
+                // O bot envia saltos completos com MOVE_PATH; se receber uma oferta, encerra a cadeia.
+                Runnable endChain = () -> respond(Protocol.END_CHAIN_JUMP);
+                if (!submit(endChain)) CompletableFuture.runAsync(endChain);
+                break;
+            case Protocol.VICTORY:
+            case Protocol.DEFEAT:
+            case Protocol.OPPONENT_FORFEIT:
+                gameOver = true;
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Agenda a busca da próxima jogada sobre uma cópia do tabuleiro atual.
+    private void think() {
+        Board snapshot = new Board(board);
+        int player = playerId;
+        boolean submitted = submit(() -> {
+            int move;
+            synchronized (engine) {
+                move = engine.findBestMove(snapshot, player, thinkTimeMillis);
+            }
+            play(snapshot, move);
+        });
+        if (!submitted) {
+            // Executor saturado: joga com uma busca rasa fora da thread da sessão para não travar a partida.
+            CompletableFuture.runAsync(() -> play(snapshot, new SearchEngine(new TranspositionTable(FALLBACK_TABLE_BITS))
+                    .findBestMove(snapshot, player, 0, FALLBACK_DEPTH)));
+        }
+    }
+
+    // Envia a jogada escolhida para a sessão.
+    private void play(Board snapshot, int move) {
+        if (move == TurnMoves.NONE) {
+            respond(Protocol.FORFEIT);
+            return;
+        }
+        int[] path = new int[Board.SQUARES];
+        int length = TurnMoves.path(snapshot, move, path, scratch);
+        StringBuilder command = new StringBuilder(TurnMoves.isJump(move) ? Protocol.MOVE_PATH : Protocol.MOVE);
+        for (int i = 0; i < length; i++) {
+            command.append(Protocol.SEPARATOR).append(Board.rowOf(path[i])).append(Protocol.SEPARATOR).append(Board.colOf(path[i]));
+        }
+        respond(command.toString());
+    }
+
+    private boolean submit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    // Envia um comando à sessão como se tivesse vindo do socket do bot.
+    private void respond(String command) {
+        GameSession session = getGameSession();
+        if (session != null && !gameOver) {
+            session.processMessage(command, this);
+        }
+    }
+}
@@ -1,29 +1,75 @@
 package br.com.victorsfec.halma.server;
 
+import br.com.victorsfec.halma.game.Board;
+import br.com.victorsfec.halma.shared.BinaryProtocol;
+import br.com.victorsfec.halma.shared.Protocol;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// A classe ClientHandler implementa Runnable: cada instância roda na thread (de plataforma ou virtual) criada pelo servidor.
+public class ClientHandler implements Runnable {
+    // Tamanho do buffer da thread de escrita; comporta com folga todas as mensagens de uma jogada.
+    private static final int OUTPUT_BUFFER_SIZE = 8 * 1024;
 
-// A classe ClientHandler herda de Thread, cada instância pode rodar em seu próprio fluxo de execução.
-public class ClientHandler extends Thread {
     private final Socket clientSocket; // O socket que representa a conexão com um cliente específico.
-    private PrintWriter out;  // O PrintWriter para enviar mensagens ao cliente.
+    // Fila de saída limitada: as mensagens de um comando se acumulam aqui e saem juntas depois de flush(),
+    // escritas pela thread de escrita da conexão (ou pelo event loop, no modo NIO), nunca pela sessão.
+    private final OutboundQueue outbound = new OutboundQueue();
     private BufferedReader in; // O BufferedReader para ler mensagens do cliente.
-    private GameSession gameSession; // A referência para a sessão de jogo à qual este cliente pertence.
+    private volatile GameSession gameSession; // A referência para a sessão de jogo à qual este cliente pertence.
     private String playerName = "Jogador Anônimo"; // O nome do jogador, com um valor padrão.
+    private volatile Matchmaker.Ticket<ClientHandler> waitingTicket; // Lugar na fila de espera, até ser pareado.
+
+    // Depois da negociação, a conexão troca quadros de BinaryProtocol em vez de linhas de texto.
+    private volatile boolean binary = false;
+    // Momento da última mensagem recebida do cliente, usado pelo heartbeat.
+    private volatile long lastReadNanos = System.nanoTime();
+    // O cliente já respondeu um PING. Clientes antigos nunca respondem, então só os que respondem
+    // (ou negociaram o binário, que só os clientes novos falam) podem cair por inatividade.
+    private volatile boolean answersPing = false;
 
     public ClientHandler(Socket socket) {
         this.clientSocket = socket;
     }
 
+    // Construtor para conexões sem Socket (modo NIO), que recebem o nome no handshake.
+    protected ClientHandler() {
+        this.clientSocket = null;
+    }
+
+    // Construtor para jogadores virtuais (bot), que não têm socket e já nascem com nome.
+    protected ClientHandler(String playerName) {
+        this.clientSocket = null;
+        this.playerName = playerName;
+    }
+
     // Definir o nome do jogador
     public void setPlayerName(String name) { this.playerName = name; }
     // Obter o nome do jogador.
     public String getPlayerName() { return playerName; }
     //Associar este handler a uma sessão de jogo.
     public void setGameSession(GameSession gameSession) { this.gameSession = gameSession; }
+    // Obter a sessão de jogo associada.
+    protected GameSession getGameSession() { return gameSession; }
+    // Guarda o lugar na fila de espera, para retirar o jogador se ele sair antes de ser pareado.
+    void setWaitingTicket(Matchmaker.Ticket<ClientHandler> ticket) { this.waitingTicket = ticket; }
+    /**
+     * Retira o jogador da fila de espera.
+     * @return false se o matchmaker já o tinha pareado (a sessão pode ainda estar sendo criada).
+     */
+    boolean leaveWaitingQueue() {
+        Matchmaker.Ticket<ClientHandler> ticket = waitingTicket;
+        return ticket == null || ticket.cancel();
+    }
+    // Indica se a conexão usa o protocolo binário.
+    protected boolean isBinary() { return binary; }
 
     //Obter o BufferedReader , inicializando-o se for nulo.
     public BufferedReader getInputStream() throws IOException {
@@ -31,25 +77,71 @@ public class ClientHandler extends Thread {
         return in;
     }
 
-    //Obter o PrintWriter , inicializando-o se for nulo.
-    public PrintWriter getOutputStream() throws IOException {
-        if (out == null) out = new PrintWriter(clientSocket.getOutputStream(), true);
-        return out;
+    // Fila de saída desta conexão (o modo NIO a esvazia no event loop).
+    protected OutboundQueue getOutbound() { return outbound; }
+
+    /**
+     * Nome do jogador na primeira linha do cliente ("SET_NAME:nome", "SET_NAME_BINARY:nome" ou, depois de uma queda,
+     * "RESUME:token:nome" e "RESUME_BINARY:token:nome").
+     * @return O nome, ou null se a linha não for um SET_NAME ou RESUME válido.
+     */
+    static String parseName(String line) {
+        if (line == null) return null;
+        int separator = line.indexOf(Protocol.SEPARATOR);
+        if (separator < 0) return null;
+        String command = line.substring(0, separator);
+        if (command.equals(Protocol.SET_NAME) || command.equals(BinaryProtocol.SET_NAME_BINARY)) return line.substring(separator + 1);
+        if (!command.equals(Protocol.RESUME) && !command.equals(BinaryProtocol.RESUME_BINARY)) return null;
+        // O token nunca contém ':', então o nome é tudo depois dele.
+        int nameSeparator = line.indexOf(Protocol.SEPARATOR, separator + 1);
+        return nameSeparator < 0 ? null : line.substring(nameSeparator + 1);
     }
 
-    // É executado quando a thread é iniciada.
+    // Token de retomada de uma linha RESUME (já validada por parseName), ou null se for um SET_NAME.
+    static String parseResumeToken(String line) {
+        if (!line.startsWith(Protocol.RESUME + Protocol.SEPARATOR) && !line.startsWith(BinaryProtocol.RESUME_BINARY + Protocol.SEPARATOR)) return null;
+        int separator = line.indexOf(Protocol.SEPARATOR);
+        return line.substring(separator + 1, line.indexOf(Protocol.SEPARATOR, separator + 1));
+    }
+
+    // Indica se a primeira linha do cliente pede o protocolo binário.
+    static boolean requestsBinary(String line) {
+        return line.startsWith(BinaryProtocol.SET_NAME_BINARY + Protocol.SEPARATOR) || line.startsWith(BinaryProtocol.RESUME_BINARY + Protocol.SEPARATOR);
+    }
+
+    /**
+     * Confirma a negociação do protocolo binário (o cliente enviou SET_NAME_BINARY).
+     * A confirmação é a última linha de texto; a partir dela só há quadros.
+     * O cliente não envia nada antes de receber a confirmação, então o BufferedReader não leu bytes binários adiantados.
+     */
+    void switchToBinary() {
+        writeLine(BinaryProtocol.BINARY_ACK);
+        flush();
+        binary = true;
+    }
+
+    // É executado pela thread da conexão.
     @Override
     public void run() {
         try {
-            // Garante que os streams de saída e entrada sejam inicializados
-            getOutputStream();
+            // Garante que o stream de entrada seja inicializado
             getInputStream();
-            // Se o cliente ainda não está em uma sessão de jogo, envia uma mensagem de status.
-            if (gameSession == null) sendMessage("INFO:Aguardando oponente...");
+            // As escritas ficam em outra thread, para que um cliente que não lê não trave quem envia.
+            HalmaServer.newConnectionThread(this::writeLoop).start();
+            if (!handshake()) return;
+            if (binary) {
+                readFrames();
+                return;
+            }
             // Variável para armazenar a linha lida do cliente.
             String inputLine;
             // Loop que lê continuamente as mensagens do cliente.
             while ((inputLine = in.readLine()) != null) {
+                touch();
+                if (Protocol.PONG.equals(inputLine)) { // Só prova que o cliente está vivo.
+                    pongReceived();
+                    continue;
+                }
                 // Se o cliente já está em uma sessão de jogo encaminha a mensagem para a sessão de jogo para ser processada.
                 if (gameSession != null) {
                     gameSession.processMessage(inputLine, this);
@@ -57,26 +149,255 @@ public class ClientHandler extends Thread {
             }
         } catch (IOException e) {
              // Se um IOException ocorrer, imprime uma mensagem no console.
-            System.out.println("Cliente desconectado: " + playerName + " (" + clientSocket.getInetAddress() + ")");
-            if (gameSession != null) {
-                gameSession.handleDisconnect(this); //Notifica a sessão do jogo sobre a desconexão.
-            }
+            Log.info(Log.Category.NET, "Cliente desconectado: " + playerName + " (" + clientSocket.getInetAddress() + ")");
         } finally {
+            // Fecha primeiro: uma sessão criada a partir daqui já encontra a conexão fechada no WELCOME.
+            outbound.close(); // Encerra a thread de escrita.
             try {
                 clientSocket.close(); // Fecha o socket do cliente para liberar os recursos.
             } catch (IOException e) {
                 e.printStackTrace();
             }
+            // Quem sai antes de ser pareado não pode ser entregue a um oponente.
+            if (!leaveWaitingQueue() && gameSession == null) {
+                Log.info(Log.Category.SESSION, "SERVER: " + playerName + " saiu durante o pareamento; a sessão cancela a partida no WELCOME.");
+            }
+            // Notifica a sessão também quando o cliente fecha a conexão sem erro (fim do stream de texto).
+            GameSession session = gameSession;
+            if (session != null) {
+                session.handleDisconnect(this);
+            }
+        }
+    }
+
+    /**
+     * Lê o SET_NAME (ou RESUME), negocia o protocolo e coloca o jogador na fila de espera ou de volta na sua partida.
+     * Se o cliente não se identificar dentro do prazo (--handshake-timeout), o socket é fechado
+     * e a leitura pendente falha; assim nenhuma conexão ociosa fica presa para sempre.
+     * @return false se a conexão deve ser encerrada.
+     */
+    private boolean handshake() throws IOException {
+        HashedWheelTimer.Timeout timeout = HalmaServer.scheduleHandshakeTimeout(() -> {
+            Log.warn(Log.Category.NET, "Cliente não enviou SET_NAME em " + HalmaServer.getHandshakeTimeoutMillis() + " ms. Desconectando: " + clientSocket.getInetAddress());
+            shutdown();
+        });
+        String nameLine = in.readLine();
+        // Se o prazo venceu enquanto a linha chegava, o socket já foi fechado.
+        if (timeout != null && !timeout.cancel()) return false;
+
+        String name = parseName(nameLine);
+        if (name == null) {
+            Log.warn(Log.Category.NET, "Erro: Primeira mensagem do cliente não foi SET_NAME. Desconectando.");
+            return false;
+        }
+        setPlayerName(name);
+        Log.info(Log.Category.NET, "SERVER: Nome do jogador definido como: " + name);
+        // Cliente novo pedindo o protocolo binário (SET_NAME_BINARY começa com SET_NAME).
+        if (requestsBinary(nameLine)) switchToBinary();
+        HalmaServer.admitPlayer(this, parseResumeToken(nameLine));
+        startHeartbeat();
+        return true;
+    }
+
+    // Lê quadros binários até o cliente fechar a conexão (EOFException é uma IOException).
+    private void readFrames() throws IOException {
+        DataInputStream input = new DataInputStream(clientSocket.getInputStream());
+        while (true) {
+            int length = input.readUnsignedShort();
+            if (length == 0) throw new IOException("Quadro vazio.");
+            byte[] frame = new byte[length]; // Passa a ser da sessão, que o lê na sua caixa.
+            input.readFully(frame, 0, length);
+            touch();
+            if (gameSession != null) {
+                gameSession.processFrame(frame, 0, length, this);
+            }
+        }
+    }
+
+    // Thread de escrita do modo bloqueante: a cada flush() envia o que está na fila em uma única escrita.
+    // Se o cliente parar de ler, só esta thread fica presa; a fila enche e a política de cliente lento age.
+    private void writeLoop() {
+        try {
+            OutputStream out = new BufferedOutputStream(clientSocket.getOutputStream(), OUTPUT_BUFFER_SIZE);
+            while (outbound.awaitFlush()) {
+                int written = 0;
+                ByteBuffer message;
+                while ((message = outbound.poll()) != null) {
+                    out.write(message.array(), message.arrayOffset() + message.position(), message.remaining());
+                    written += message.remaining();
+                }
+                out.flush();
+                outbound.release(written);
+            }
+        } catch (IOException e) {
+            // A falha aparece também para a thread de leitura, que trata a desconexão.
+            Log.warn(Log.Category.NET, "Erro ao enviar para " + playerName + ": " + e.getMessage());
+            shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
     public void sendMessage(String message) {
-        // Verifica se o stream de saída foi inicializado.
-        if (out != null) {
-            // Registo para depuração
-            System.out.println("SERVER -> " + playerName + ": " + message);
-            out.println(message);
+        sendMessage(message, OutboundQueue.Kind.MESSAGE);
+    }
+
+    // Mensagem de chat: é a primeira a ser descartada quando o cliente não acompanha.
+    public void sendChat(String message) {
+        sendMessage(message, OutboundQueue.Kind.CHAT);
+    }
+
+    // Envia uma linha do protocolo de texto; o tipo diz à fila de saída o que pode ser combinado ou descartado.
+    protected void sendMessage(String message, OutboundQueue.Kind kind) {
+        // Registo para depuração; sem custo quando o rastreio do protocolo está desligado.
+        if (Log.isEnabled(Log.Category.PROTOCOL, Log.Level.DEBUG)) Log.debug(Log.Category.PROTOCOL, "SERVER -> " + playerName + ": " + message);
+        if (binary) writeFrame(BinaryProtocol.text(message), kind);
+        else writeLine(message, kind);
+    }
+
+    // Confirma ou repassa um movimento (VALID_MOVE, JUMP_MOVE ou OPPONENT_MOVED).
+    public void sendMove(String command, int from, int to) {
+        if (!binary) {
+            sendMessage(command + Protocol.SEPARATOR + Board.rowOf(from) + Protocol.SEPARATOR + Board.colOf(from)
+                    + Protocol.SEPARATOR + Board.rowOf(to) + Protocol.SEPARATOR + Board.colOf(to));
+            return;
         }
+        byte opcode = Protocol.VALID_MOVE.equals(command) ? BinaryProtocol.VALID_MOVE
+                : Protocol.JUMP_MOVE.equals(command) ? BinaryProtocol.JUMP_MOVE : BinaryProtocol.OPPONENT_MOVED;
+        if (Log.isEnabled(Log.Category.PROTOCOL, Log.Level.DEBUG)) Log.debug(Log.Category.PROTOCOL, "SERVER -> " + playerName + ": [bin] " + command + " " + from + ">" + to);
+        writeFrame(BinaryProtocol.move(opcode, from, to), OutboundQueue.Kind.MESSAGE);
+    }
+
+    public void sendTurn(boolean yourTurn) {
+        if (!binary) {
+            sendMessage(Protocol.SET_TURN + Protocol.SEPARATOR + (yourTurn ? "YOUR_TURN" : "OPPONENT_TURN"), OutboundQueue.Kind.TURN);
+            return;
+        }
+        if (Log.isEnabled(Log.Category.PROTOCOL, Log.Level.DEBUG)) Log.debug(Log.Category.PROTOCOL, "SERVER -> " + playerName + ": [bin] " + Protocol.SET_TURN + " " + yourTurn);
+        writeFrame(BinaryProtocol.turn(yourTurn), OutboundQueue.Kind.TURN);
+    }
+
+    public void sendScore(int player1Moves, int player2Moves) {
+        if (!binary) {
+            sendMessage(Protocol.UPDATE_SCORE + Protocol.SEPARATOR + player1Moves + Protocol.SEPARATOR + player2Moves, OutboundQueue.Kind.SCORE);
+            return;
+        }
+        if (Log.isEnabled(Log.Category.PROTOCOL, Log.Level.DEBUG)) Log.debug(Log.Category.PROTOCOL, "SERVER -> " + playerName + ": [bin] " + Protocol.UPDATE_SCORE + " " + player1Moves + " " + player2Moves);
+        writeFrame(BinaryProtocol.score(player1Moves, player2Moves), OutboundQueue.Kind.SCORE);
+    }
+
+    public void sendChainJumpOffer(int square) {
+        if (!binary) {
+            sendMessage(Protocol.CHAIN_JUMP_OFFER + Protocol.SEPARATOR + Board.rowOf(square) + Protocol.SEPARATOR + Board.colOf(square));
+            return;
+        }
+        if (Log.isEnabled(Log.Category.PROTOCOL, Log.Level.DEBUG)) Log.debug(Log.Category.PROTOCOL, "SERVER -> " + playerName + ": [bin] " + Protocol.CHAIN_JUMP_OFFER + " " + square);
+        writeFrame(BinaryProtocol.square(BinaryProtocol.CHAIN_JUMP_OFFER, square), OutboundQueue.Kind.MESSAGE);
+    }
+
+    // Envia os destinos válidos de uma peça: "linha,coluna;..." em texto ou uma máscara de 100 bits no binário.
+    public void sendValidMoves(int[] squares, int count) {
+        if (!binary) {
+            StringBuilder message = new StringBuilder(Protocol.VALID_MOVES_LIST).append(Protocol.SEPARATOR);
+            for (int i = 0; i < count; i++) {
+                if (i > 0) message.append(';');
+                message.append(Board.rowOf(squares[i])).append(',').append(Board.colOf(squares[i]));
+            }
+            sendMessage(message.toString());
+            return;
+        }
+        if (Log.isEnabled(Log.Category.PROTOCOL, Log.Level.DEBUG)) Log.debug(Log.Category.PROTOCOL, "SERVER -> " + playerName + ": [bin] " + Protocol.VALID_MOVES_LIST + " (" + count + ")");
+        writeFrame(BinaryProtocol.validMoves(squares, count), OutboundQueue.Kind.MESSAGE);
+    }
+
+    // Acumula uma linha de texto na fila de saída.
+    protected void writeLine(String line) {
+        writeLine(line, OutboundQueue.Kind.MESSAGE);
+    }
+
+    private void writeLine(String line, OutboundQueue.Kind kind) {
+        enqueue(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)), kind);
+    }
+
+    // Acumula um quadro binário completo na fila de saída.
+    private void writeFrame(byte[] frame, OutboundQueue.Kind kind) {
+        enqueue(ByteBuffer.wrap(frame), kind);
+    }
+
+    private void enqueue(ByteBuffer message, OutboundQueue.Kind kind) {
+        if (!outbound.offer(message, kind)) {
+            Log.warn(Log.Category.NET, "Cliente lento: " + playerName + " não está lendo (fila de saída de "
+                    + OutboundQueue.getCapacityBytes() + " bytes cheia). Desconectando.");
+            forceDisconnect();
+        }
+    }
+
+    // Derruba um cliente lento ou que parou de responder; a leitura falha e a sessão é avisada como em qualquer desconexão.
+    protected void forceDisconnect() {
+        shutdown();
+    }
+
+    // Indica se a conexão ainda está aberta (o heartbeat para quando ela fecha).
+    protected boolean isConnected() {
+        return clientSocket != null && !clientSocket.isClosed();
+    }
+
+    // Registra que o cliente deu sinal de vida.
+    protected void touch() {
+        lastReadNanos = System.nanoTime();
+    }
+
+    // Registra que o cliente respondeu um PING: a partir daqui o --idle-timeout vale para ele.
+    protected void pongReceived() {
+        answersPing = true;
+    }
+
+    // Inicia o heartbeat da conexão, depois do handshake (no timer compartilhado, sem thread própria).
+    void startHeartbeat() {
+        long period = heartbeatPeriod();
+        if (period > 0) HalmaServer.getTimer().schedule(this::heartbeat, period);
+    }
+
+    // Período da verificação: o menor entre o intervalo do PING e o limite de inatividade (0 se o PING estiver desligado).
+    private static long heartbeatPeriod() {
+        long interval = HalmaServer.getHeartbeatIntervalMillis();
+        long idleTimeout = HalmaServer.getIdleTimeoutMillis();
+        if (interval <= 0) return 0;
+        return idleTimeout > 0 ? Math.min(interval, idleTimeout) : interval;
+    }
+
+    // A cada intervalo sem receber nada, envia PING; se um cliente que responde PING ficar mudo por --idle-timeout,
+    // a conexão é considerada morta (por exemplo, meio aberta depois de o cliente perder a rede) e é fechada.
+    // Sem PING não há o que responder, então o limite também fica desligado.
+    private void heartbeat() {
+        if (!isConnected()) return;
+        long interval = HalmaServer.getHeartbeatIntervalMillis();
+        long idleTimeout = HalmaServer.getIdleTimeoutMillis();
+        long idleMillis = (System.nanoTime() - lastReadNanos) / 1_000_000;
+        if (idleTimeout > 0 && (answersPing || binary) && idleMillis >= idleTimeout) {
+            Log.warn(Log.Category.NET, "Cliente " + playerName + " não responde há " + idleMillis + " ms. Desconectando.");
+            forceDisconnect();
+            return;
+        }
+        if (idleMillis >= interval) {
+            sendMessage(Protocol.PING);
+            flush();
+        }
+        HalmaServer.getTimer().schedule(this::heartbeat, heartbeatPeriod());
+    }
+
+    /**
+     * Envia tudo o que foi acumulado. A GameSession chama ao terminar cada lote de comandos,
+     * então as respostas de uma jogada (placar, movimento, turno) saem em uma única escrita.
+     * Não bloqueia: quem escreve é a thread de escrita da conexão.
+     */
+    public void flush() {
+        outbound.requestFlush();
+    }
+
+    // Marca a conexão como binária sem escrever nada (usado por subclasses que escrevem por conta própria).
+    protected void setBinary(boolean binary) {
+        this.binary = binary;
     }
 
     public void shutdown() {
@@ -87,7 +408,7 @@ public class ClientHandler extends Thread {
             }
         } catch (IOException e) {
             // Se ocorrer um erro durante o desligamento, imprime uma mensagem de erro.
-            System.err.println("Erro durante o desligamento do cliente: " + e.getMessage());
+            Log.warn(Log.Category.NET, "Erro durante o desligamento do cliente: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
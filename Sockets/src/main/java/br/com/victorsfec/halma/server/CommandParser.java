@@ -0,0 +1,152 @@
+package br.com.victorsfec.halma.server;
+
+import br.com.victorsfec.halma.game.Board;
+import br.com.victorsfec.halma.shared.Protocol;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodifica as linhas do protocolo de texto direto para inteiros, sem split, regex ou exceções.
+ * Aceita tanto uma String (modo bloqueante, bot) quanto os bytes da linha (modo NIO, quadros TEXT).
+ * Cada GameSession tem o seu parser, usado só pela thread que drena a caixa de mensagens da sessão; o resultado fica nos campos até a próxima linha.
+ */
+final class CommandParser {
+    // Resultados de parse().
+    static final int OK = 0;
+    static final int UNKNOWN_COMMAND = 1; // Comando vazio ou desconhecido.
+    static final int MALFORMED = 2;       // Argumento ausente, não numérico ou em quantidade errada.
+    static final int OUT_OF_RANGE = 3;    // Coordenada fora do tabuleiro (inclusive negativa).
+    static final int INVALID_MOVE = 4;    // MOVE com casas a mais: bem formado, mas não é um movimento.
+
+    // Comandos reconhecidos.
+    static final int MOVE = 1;
+    static final int MOVE_PATH = 2;
+    static final int CHAT = 3;
+    static final int FORFEIT = 4;
+    static final int END_CHAIN_JUMP = 5;
+    static final int GET_VALID_MOVES = 6;
+    static final int GET_JUMP_PATHS = 7;
+
+    // Nomes na ordem dos códigos acima (índice = código - 1).
+    private static final String[] NAMES = {
+            Protocol.MOVE, Protocol.MOVE_PATH, Protocol.CHAT, Protocol.FORFEIT,
+            Protocol.END_CHAIN_JUMP, Protocol.GET_VALID_MOVES, Protocol.GET_JUMP_PATHS
+    };
+    private static final char SEPARATOR = Protocol.SEPARATOR.charAt(0);
+    // Maior número de dígitos aceito em uma coordenada; evita overflow com entradas absurdas.
+    private static final int MAX_DIGITS = 4;
+
+    private int command;
+    // Casas decodificadas (linha * 10 + coluna), na ordem em que vieram.
+    private final int[] squares = new int[Board.SQUARES];
+    private int squareCount;
+    private int payloadStart; // Início do texto livre de CHAT.
+
+    // Fonte da linha atual: uma String ou um trecho de bytes.
+    private String text;
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    int parse(String line) {
+        text = line;
+        bytes = null;
+        offset = 0;
+        length = line.length();
+        return parse();
+    }
+
+    int parse(byte[] data, int offset, int length) {
+        text = null;
+        bytes = data;
+        this.offset = offset;
+        this.length = length;
+        return parse();
+    }
+
+    int getCommand() { return command; }
+    int getSquareCount() { return squareCount; }
+    int getSquare(int index) { return squares[index]; }
+    int[] getSquares() { return squares; }
+
+    // Texto livre depois do comando (só CHAT o usa; é a única alocação do parser).
+    String getPayload() {
+        if (text != null) return text.substring(payloadStart);
+        return new String(bytes, offset + payloadStart, length - payloadStart, StandardCharsets.UTF_8);
+    }
+
+    private int parse() {
+        command = 0;
+        squareCount = 0;
+        int position = matchCommand();
+        if (command == 0) return UNKNOWN_COMMAND;
+
+        switch (command) {
+            case CHAT:
+                if (position >= length) return MALFORMED;
+                payloadStart = position + 1;
+                return OK;
+            case FORFEIT:
+            case END_CHAIN_JUMP:
+                return OK; // Argumentos extras são ignorados, como antes.
+            default:
+                break;
+        }
+
+        // Os demais comandos são pares linha:coluna separados por ':'.
+        int coordinates = 0;
+        int row = 0;
+        while (position < length) {
+            position++; // Pula o separador.
+            int value = 0;
+            int digits = 0;
+            boolean negative = position < length && charAt(position) == '-';
+            if (negative) position++;
+            while (position < length && charAt(position) != SEPARATOR) {
+                int digit = charAt(position) - '0';
+                if (digit < 0 || digit > 9 || ++digits > MAX_DIGITS) return MALFORMED;
+                value = value * 10 + digit;
+                position++;
+            }
+            if (digits == 0) return MALFORMED;
+            if (negative || value >= Board.SIZE) return OUT_OF_RANGE;
+            if (coordinates % 2 == 0) {
+                row = value;
+            } else {
+                if (squareCount == squares.length) return MALFORMED;
+                squares[squareCount++] = Board.square(row, value);
+            }
+            coordinates++;
+        }
+        if (coordinates % 2 != 0) return MALFORMED;
+
+        switch (command) {
+            case MOVE:
+                return squareCount == 2 ? OK : squareCount > 2 ? INVALID_MOVE : MALFORMED;
+            case MOVE_PATH:
+                return squareCount >= 2 ? OK : MALFORMED;
+            default: // GET_VALID_MOVES, GET_JUMP_PATHS
+                return squareCount == 1 ? OK : MALFORMED;
+        }
+    }
+
+    // Identifica o comando no início da linha; devolve a posição logo depois do nome.
+    private int matchCommand() {
+        for (int i = 0; i < NAMES.length; i++) {
+            String name = NAMES[i];
+            int end = name.length();
+            if (end > length || (end < length && charAt(end) != SEPARATOR)) continue;
+            boolean equal = true;
+            for (int j = 0; j < end && equal; j++) equal = charAt(j) == name.charAt(j);
+            if (equal) {
+                command = i + 1;
+                return end;
+            }
+        }
+        return 0;
+    }
+
+    // Os comandos e coordenadas são ASCII, então um byte equivale a um char.
+    private char charAt(int index) {
+        return text != null ? text.charAt(index) : (char) (bytes[offset + index] & 0xFF);
+    }
+}
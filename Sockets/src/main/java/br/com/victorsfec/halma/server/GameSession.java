@@ -1,17 +1,31 @@
 package br.com.victorsfec.halma.server;
 
 import br.com.victorsfec.halma.game.Board;
+import br.com.victorsfec.halma.game.Piece;
+import br.com.victorsfec.halma.shared.BinaryProtocol;
 import br.com.victorsfec.halma.shared.Protocol;
-import java.awt.Point;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.StringJoiner;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 // GameSession gerencia uma partida entre dois jogadores.
+// As mensagens dos jogadores entram na caixa de mensagens da sessão e são tratadas uma de cada vez,
+// no executor compartilhado das sessões; o estado da partida só é tocado por quem drena a caixa.
+// Quem cai no meio da partida tem o lugar reservado por --resume-grace: voltando com o token de RESUME_TOKEN,
+// a nova conexão ocupa o lugar da antiga e recebe o estado completo da partida.
 public class GameSession implements Runnable {
-    private final ClientHandler player1;  // Referências para os handlers dos dois jogadores.
-    private final ClientHandler player2;
+    // Partidas em andamento por token de retomada (os dois tokens de cada sessão).
+    private static final ConcurrentHashMap<String, GameSession> resumable = new ConcurrentHashMap<>();
+    private static final SecureRandom tokenRandom = new SecureRandom();
+
+    private ClientHandler player1;  // Referências para os handlers dos dois jogadores (trocadas quando um deles retoma).
+    private ClientHandler player2;
+    private final String player1Token = newToken(); // Tokens de retomada de cada lugar.
+    private final String player2Token = newToken();
     private final Board board; // Instância do tabuleiro para esta partida.
     private int currentPlayer; // Variável que armazena de quem é o turno
 
@@ -30,18 +44,44 @@ public class GameSession implements Runnable {
     private String player1Name;
     private String player2Name;
 
-    public GameSession(ClientHandler player1, ClientHandler player2) {
+    // Buffers reutilizados por GET_VALID_MOVES para não gerar lixo a cada pedido.
+    private final int[] moveBuffer = new int[Board.MAX_MOVES];
+    private final StringBuilder messageBuilder = new StringBuilder();
+    // Buffers da busca de saltos em cadeia (GET_JUMP_PATHS e MOVE_PATH).
+    private final int[] chainTargets = new int[Board.SQUARES];
+    private final int[] chainParents = new int[Board.SQUARES];
+    private final int[] pathBuffer = new int[Board.SQUARES];
+    // Decodifica as linhas de texto recebidas; usado só por quem drena a caixa de mensagens.
+    private final CommandParser parser = new CommandParser();
+
+    // Substitui o lock da sessão: as threads dos jogadores só entregam mensagens, sem esperar uma pela outra.
+    // A saída acumulada por um lote de mensagens é enviada ao fim do lote.
+    private final Mailbox mailbox;
+
+    public GameSession(ClientHandler player1, ClientHandler player2, Executor scheduler) {
         this.player1 = player1;
         this.player2 = player2;
         this.board = new Board();
         this.currentPlayer = 1; // O jogador 1 sempre começa.
+        this.mailbox = new Mailbox(scheduler, this::flushPlayers);
+    }
 
-        this.player1.setGameSession(this);
-        this.player2.setGameSession(this);
+    // Inicia a partida: as boas-vindas são a primeira mensagem da caixa, antes de qualquer comando dos jogadores.
+    // A sessão é associada antes de postar, para que uma desconexão a partir daqui a encontre (ou seja vista no WELCOME).
+    public void start() {
+        player1.setGameSession(this);
+        player2.setGameSession(this);
+        mailbox.post(this);
     }
 
     @Override
     public void run() {
+        // Um jogador que caiu enquanto era pareado não chegou a saber da partida: ela é cancelada e quem ficou volta à fila.
+        if (!player1.isConnected() || !player2.isConnected()) {
+            cancel();
+            return;
+        }
+
         // Lógica para verificar e diferenciar nomes iguais
         if (player1.getPlayerName().equals(player2.getPlayerName())) {
             String originalName = player1.getPlayerName();
@@ -56,6 +96,14 @@ public class GameSession implements Runnable {
         // Mensagem WELCOME agora envia o nome final do jogador
         player1.sendMessage(Protocol.WELCOME + Protocol.SEPARATOR + "1" + Protocol.SEPARATOR + this.player1Name);
         player2.sendMessage(Protocol.WELCOME + Protocol.SEPARATOR + "2" + Protocol.SEPARATOR + this.player2Name);
+        // O token de retomada vai em uma mensagem própria, que os clientes antigos ignoram como comando desconhecido.
+        // Sem reserva de lugar (--resume-grace=0) não há token.
+        if (HalmaServer.getResumeGraceMillis() > 0) {
+            resumable.put(player1Token, this);
+            resumable.put(player2Token, this);
+            player1.sendMessage(Protocol.RESUME_TOKEN + Protocol.SEPARATOR + player1Token);
+            player2.sendMessage(Protocol.RESUME_TOKEN + Protocol.SEPARATOR + player2Token);
+        }
         
         player1.sendMessage(Protocol.OPPONENT_FOUND + Protocol.SEPARATOR + player2Name);
         player2.sendMessage(Protocol.OPPONENT_FOUND + Protocol.SEPARATOR + player1Name);
@@ -64,77 +112,145 @@ public class GameSession implements Runnable {
         updateTurn(); // Envia a primeira mensagem de turno.
     }
 
+    // Desfaz a partida antes do WELCOME, sem vencedor nem rating.
+    private void cancel() {
+        gameEnded = true;
+        Log.info(Log.Category.SESSION, "SERVER: Partida entre '" + player1.getPlayerName() + "' e '" + player2.getPlayerName() + "' cancelada: um jogador saiu durante o pareamento.");
+        for (ClientHandler player : new ClientHandler[] { player1, player2 }) {
+            player.setGameSession(null);
+            if (player.isConnected() && !(player instanceof BotClientHandler)) HalmaServer.registerWaitingPlayer(player);
+        }
+    }
+
+    // Envia em uma escrita por jogador tudo o que o último lote de mensagens gerou (depois da mudança de estado).
+    private void flushPlayers() {
+        player1.flush();
+        player2.flush();
+    }
+
     // Método para enviar as atualizações de placar
     private void broadcastScoreUpdate() {
-        String message = Protocol.UPDATE_SCORE + Protocol.SEPARATOR + player1MoveCount + Protocol.SEPARATOR + player2MoveCount;
-        player1.sendMessage(message);
-        player2.sendMessage(message);
+        player1.sendScore(player1MoveCount, player2MoveCount);
+        player2.sendScore(player1MoveCount, player2MoveCount);
     }
 
-    private void handleMove(String moveData, ClientHandler sender) {
-        try {
-            String[] coords = moveData.split(Protocol.SEPARATOR);
-            int startRow = Integer.parseInt(coords[0]);
-            int startCol = Integer.parseInt(coords[1]);
-            int endRow = Integer.parseInt(coords[2]);
-            int endCol = Integer.parseInt(coords[3]);
-            int senderId = (sender == player1) ? 1 : 2;
-    
-            // Se um salto em cadeia está ativo, o jogador deve mover a mesma peça.
-            if (isChainJumpActive && (startRow != chainJumpRow || startCol != chainJumpCol)) {
-                sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Você deve continuar pulando com a mesma peça.");
-                return;
-            }
+    private void handleMove(int startRow, int startCol, int endRow, int endCol, ClientHandler sender) {
+        int senderId = (sender == player1) ? 1 : 2;
 
-            // Tenta realizar o movimento no tabuleiro.
-            if (board.movePiece(startRow, startCol, endRow, endCol, currentPlayer, isChainJumpActive)) {
-                if (senderId == 1) player1MoveCount++; else player2MoveCount++;
-                
-                // Envia a atualização do placar para ambos os jogadores
-                broadcastScoreUpdate();
-
-                boolean wasJump = Math.abs(startRow - endRow) > 1 || Math.abs(startCol - endCol) > 1;
-                ClientHandler opponent = (sender == player1) ? player2 : player1;
-
-                // Se foi um salto e a peça pode saltar novamente da nova posição
-                if (wasJump && board.canJumpFrom(endRow, endCol)) {
-                    isChainJumpActive = true;
-                    chainJumpRow = endRow;
-                    chainJumpCol = endCol;
-                    sender.sendMessage(Protocol.JUMP_MOVE + Protocol.SEPARATOR + moveData);
-                    opponent.sendMessage(Protocol.OPPONENT_MOVED + Protocol.SEPARATOR + moveData);
-                    sender.sendMessage(Protocol.CHAIN_JUMP_OFFER + Protocol.SEPARATOR + endRow + Protocol.SEPARATOR + endCol);
-                } else {
-                    // Se não foi um salto ou não há mais saltos possíveis, desativa o modo de salto em cadeia.
-                    isChainJumpActive = false;
-                    sender.sendMessage(Protocol.VALID_MOVE + Protocol.SEPARATOR + moveData);
-                    opponent.sendMessage(Protocol.OPPONENT_MOVED + Protocol.SEPARATOR + moveData);
-                    
-                    // Verifica se o jogador venceu a partida após o movimento.
-                    if (board.checkForWinner(currentPlayer)) {
-                        String winnerName = (currentPlayer == 1) ? player1Name : player2Name;
-                        winnerInfo = winnerName + " ganhou por chegar no destino!";
-                        endGame(sender, opponent, Protocol.VICTORY, Protocol.DEFEAT);
-                    } else {
-                        // Se ninguém venceu, passa o turno para o próximo jogador.
-                        switchTurn();
-                    }
-                }
+        // Se um salto em cadeia está ativo, o jogador deve mover a mesma peça.
+        if (isChainJumpActive && (startRow != chainJumpRow || startCol != chainJumpCol)) {
+            sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Você deve continuar pulando com a mesma peça.");
+            return;
+        }
+
+        // Tenta realizar o movimento no tabuleiro.
+        if (board.movePiece(startRow, startCol, endRow, endCol, currentPlayer, isChainJumpActive)) {
+            if (senderId == 1) player1MoveCount++; else player2MoveCount++;
+
+            // Envia a atualização do placar para ambos os jogadores
+            broadcastScoreUpdate();
+
+            boolean wasJump = Math.abs(startRow - endRow) > 1 || Math.abs(startCol - endCol) > 1;
+            ClientHandler opponent = (sender == player1) ? player2 : player1;
+            int from = Board.square(startRow, startCol);
+            int to = Board.square(endRow, endCol);
+
+            // Se foi um salto e a peça pode saltar novamente da nova posição
+            if (wasJump && board.canJumpFrom(endRow, endCol)) {
+                isChainJumpActive = true;
+                chainJumpRow = endRow;
+                chainJumpCol = endCol;
+                sender.sendMove(Protocol.JUMP_MOVE, from, to);
+                opponent.sendMove(Protocol.OPPONENT_MOVED, from, to);
+                sender.sendChainJumpOffer(to);
             } else {
-                // Se o movimento foi inválido, incrementa o contador de tentativas inválidas.
+                // Se não foi um salto ou não há mais saltos possíveis, desativa o modo de salto em cadeia.
+                isChainJumpActive = false;
+                sender.sendMove(Protocol.VALID_MOVE, from, to);
+                opponent.sendMove(Protocol.OPPONENT_MOVED, from, to);
+
+                finishTurn(sender);
+            }
+        } else {
+            // Se o movimento foi inválido, incrementa o contador de tentativas inválidas.
+            if (senderId == 1) player1InvalidAttempts++; else player2InvalidAttempts++;
+            sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Movimento inválido.");
+        }
+    }
+
+    // Aplica um salto em cadeia completo (MOVE_PATH) já decodificado em pathBuffer: origem seguida de "hops" pousos.
+    private void applyPath(int hops, ClientHandler sender) {
+        int senderId = (sender == player1) ? 1 : 2;
+        if (isChainJumpActive && pathBuffer[0] != Board.square(chainJumpRow, chainJumpCol)) {
+            sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Você deve continuar pulando com a mesma peça.");
+            return;
+        }
+
+        // Aplica cada salto; se algum for inválido, desfaz os anteriores e rejeita o caminho inteiro.
+        for (int i = 1; i <= hops; i++) {
+            int from = pathBuffer[i - 1];
+            int to = pathBuffer[i];
+            if (!board.movePiece(Board.rowOf(from), Board.colOf(from), Board.rowOf(to), Board.colOf(to), currentPlayer, true)) {
+                for (int j = i - 1; j >= 1; j--) board.unmakeMove();
                 if (senderId == 1) player1InvalidAttempts++; else player2InvalidAttempts++;
                 sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Movimento inválido.");
+                return;
+            }
+        }
+
+        if (senderId == 1) player1MoveCount += hops; else player2MoveCount += hops;
+        broadcastScoreUpdate();
+
+        // Cada salto é repassado como um movimento comum, compatível com os clientes existentes.
+        ClientHandler opponent = (sender == player1) ? player2 : player1;
+        for (int i = 1; i <= hops; i++) {
+            sender.sendMove(Protocol.VALID_MOVE, pathBuffer[i - 1], pathBuffer[i]);
+            opponent.sendMove(Protocol.OPPONENT_MOVED, pathBuffer[i - 1], pathBuffer[i]);
+        }
+
+        // O caminho enviado encerra a jogada, mesmo que ainda existam saltos possíveis.
+        isChainJumpActive = false;
+        finishTurn(sender);
+    }
+
+    // Gera os destinos no buffer da sessão e responde sem listas nem Points intermediários.
+    private void sendValidMoves(int row, int col, ClientHandler sender) {
+        int count = board.getValidMoves(row, col, isChainJumpActive, moveBuffer);
+        sender.sendValidMoves(moveBuffer, count);
+    }
+
+    // Responde com todas as casas alcançáveis por saltos em cadeia a partir de uma peça e o caminho até cada uma.
+    private void sendJumpPaths(int row, int col, ClientHandler sender) {
+        int count = board.getChainJumpTargets(row, col, chainTargets, chainParents);
+        messageBuilder.setLength(0);
+        messageBuilder.append(Protocol.JUMP_PATHS_LIST).append(Protocol.SEPARATOR);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) messageBuilder.append(';');
+            int length = Board.tracePath(chainParents, chainTargets[i], pathBuffer);
+            for (int j = 0; j < length; j++) {
+                if (j > 0) messageBuilder.append('>');
+                messageBuilder.append(Board.rowOf(pathBuffer[j])).append(',').append(Board.colOf(pathBuffer[j]));
             }
-        } catch (Exception e) {
-            // Se ocorrer um erro ao processar os dados do movimento
-            sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Comando de movimento malformado.");
         }
+        sender.sendMessage(messageBuilder.toString());
     }
-    
+
+    // Encerra a jogada do jogador atual: verifica a vitória ou passa o turno.
+    private void finishTurn(ClientHandler sender) {
+        if (board.checkForWinner(currentPlayer)) {
+            String winnerName = (currentPlayer == 1) ? player1Name : player2Name;
+            winnerInfo = winnerName + " ganhou por chegar no destino!";
+            endGame(sender, (sender == player1) ? player2 : player1, Protocol.VICTORY, Protocol.DEFEAT);
+        } else {
+            // Se ninguém venceu, passa o turno para o próximo jogador.
+            switchTurn();
+        }
+    }
+
     private void handleForfeit(ClientHandler forfeiter) {
         // Se o jogo já terminou, não faz nada.
         if (gameEnded) return;
-        System.out.println("SERVER: Recebido pedido de desistência do " + forfeiter.getPlayerName());
+        Log.info(Log.Category.SESSION, "SERVER: Recebido pedido de desistência do " + forfeiter.getPlayerName());
         
         // Determina quem é o vencedor.
         ClientHandler winner = (forfeiter == player1) ? player2 : player1;
@@ -150,89 +266,257 @@ public class GameSession implements Runnable {
     }
 
     //Método para lidar com a desconexão de um jogador no meio do jogo.
-    public synchronized void handleDisconnect(ClientHandler disconnectedPlayer) {
-        if (gameEnded) return;
-        System.out.println("SERVER: Jogador desconectado a meio do jogo.");
-        
-        // O jogador que permaneceu conectado é o vencedor.
+    public void handleDisconnect(ClientHandler disconnectedPlayer) {
+        mailbox.post(() -> {
+            if (gameEnded) return;
+            // Antes do WELCOME: ele mesmo verá a conexão fechada e cancelará a partida.
+            if (player1Name == null) return;
+            // Uma conexão já substituída por uma retomada não representa mais o jogador.
+            if (disconnectedPlayer != player1 && disconnectedPlayer != player2) return;
+            ClientHandler opponent = (disconnectedPlayer == player1) ? player2 : player1;
+
+            long grace = HalmaServer.getResumeGraceMillis();
+            if (grace > 0) {
+                // Reserva o lugar: a partida continua parada até o jogador voltar ou o prazo vencer.
+                Log.info(Log.Category.SESSION, "SERVER: " + disconnectedPlayer.getPlayerName() + " desconectou; lugar reservado por " + grace + " ms.");
+                HalmaServer.getTimer().schedule(() -> mailbox.post(() -> expireGrace(disconnectedPlayer)), grace);
+                opponent.sendMessage(Protocol.INFO + Protocol.SEPARATOR + "Oponente desconectado. Aguardando a reconexão...");
+                return;
+            }
+            Log.info(Log.Category.SESSION, "SERVER: Jogador desconectado a meio do jogo.");
+
+            // O jogador que permaneceu conectado é o vencedor.
+            endGame(opponent, disconnectedPlayer, Protocol.OPPONENT_FORFEIT, "");
+        });
+    }
+
+    // Fim da reserva: se a conexão que caiu ainda ocupa o lugar (o jogador não voltou), o oponente vence.
+    private void expireGrace(ClientHandler disconnectedPlayer) {
+        if (gameEnded || (disconnectedPlayer != player1 && disconnectedPlayer != player2)) return;
+        Log.info(Log.Category.SESSION, "SERVER: " + disconnectedPlayer.getPlayerName() + " não voltou a tempo.");
         ClientHandler winner = (disconnectedPlayer == player1) ? player2 : player1;
         endGame(winner, disconnectedPlayer, Protocol.OPPONENT_FORFEIT, "");
     }
 
+    /**
+     * Devolve à partida um jogador que reconectou com um token de retomada.
+     * @return false se o token não pertence a nenhuma partida em andamento.
+     */
+    static boolean resume(String token, ClientHandler player) {
+        GameSession session = resumable.get(token);
+        if (session == null) return false;
+        session.mailbox.post(() -> session.reattach(token, player));
+        return true;
+    }
+
+    // A nova conexão ocupa o lugar da antiga e recebe o estado completo da partida.
+    private void reattach(String token, ClientHandler player) {
+        if (gameEnded) {
+            // A partida acabou enquanto o pedido esperava na caixa: segue como um jogador novo.
+            HalmaServer.admitPlayer(player, null);
+            return;
+        }
+        int seat = token.equals(player1Token) ? 1 : 2;
+        ClientHandler previous = (seat == 1) ? player1 : player2;
+        if (seat == 1) player1 = player; else player2 = player;
+        player.setPlayerName(previous.getPlayerName());
+        player.setGameSession(this);
+        // A conexão antiga pode ainda parecer viva (meio aberta): é fechada, e o aviso de desconexão dela é ignorado.
+        previous.shutdown();
+        Log.info(Log.Category.SESSION, "SERVER: " + player.getPlayerName() + " retomou a partida.");
+
+        sendState(player);
+        ClientHandler opponent = (seat == 1) ? player2 : player1;
+        opponent.sendMessage(Protocol.INFO + Protocol.SEPARATOR + "Oponente reconectou.");
+    }
+
+    // Estado completo em uma linha (GAME_STATE): turno, placar, salto em cadeia e o dono de cada casa.
+    private void sendState(ClientHandler player) {
+        messageBuilder.setLength(0);
+        messageBuilder.append(Protocol.GAME_STATE).append(Protocol.SEPARATOR).append(currentPlayer)
+                .append(Protocol.SEPARATOR).append(player1MoveCount).append(Protocol.SEPARATOR).append(player2MoveCount)
+                .append(Protocol.SEPARATOR).append(isChainJumpActive ? chainJumpRow : -1)
+                .append(Protocol.SEPARATOR).append(isChainJumpActive ? chainJumpCol : -1).append(Protocol.SEPARATOR);
+        for (int square = 0; square < Board.SQUARES; square++) {
+            Piece piece = board.getPieceAt(Board.rowOf(square), Board.colOf(square));
+            messageBuilder.append(piece == null ? 0 : piece.getPlayerId());
+        }
+        player.sendMessage(messageBuilder.toString());
+    }
+
+    // Token aleatório de 128 bits em hexadecimal (nunca contém ':').
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        tokenRandom.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
 
     private void endGame(ClientHandler winner, ClientHandler loser, String winMessage, String loseMessage) {
         if (gameEnded) return;
         gameEnded = true; // Define a flag de jogo terminado como true para evitar ações futuras.
+        resumable.remove(player1Token);
+        resumable.remove(player2Token);
 
-        System.out.println("SERVER: A finalizar o jogo. Vencedor: " + winner.getPlayerName());
+        Log.info(Log.Category.SESSION, "SERVER: A finalizar o jogo. Vencedor: " + winner.getPlayerName());
+        // Atualiza o rating usado pelo matchmaker (partidas contra o bot também contam).
+        Ratings.recordWin(winner.getPlayerName(), loser.getPlayerName());
 
         // Envia as estatísticas finais para ambos os jogadores.
         sendGameOverStats();
 
-        System.out.println("SERVER: Enviando mensagem de vitória para " + winner.getPlayerName() + ": " + winMessage);
+        Log.info(Log.Category.SESSION, "SERVER: Enviando mensagem de vitória para " + winner.getPlayerName() + ": " + winMessage);
         winner.sendMessage(winMessage); // Envia a mensagem de vitória para o vencedor.
 
         // Se houver uma mensagem de derrota a ser enviada.
         if (loseMessage != null && !loseMessage.isEmpty()) {
-            System.out.println("SERVER: Enviando mensagem de derrota para " + loser.getPlayerName() + ": " + loseMessage);
+            Log.info(Log.Category.SESSION, "SERVER: Enviando mensagem de derrota para " + loser.getPlayerName() + ": " + loseMessage);
             loser.sendMessage(loseMessage);
         }
     }
 
     // Processa uma mensagem recebida de um dos jogadores.
-    public synchronized void processMessage(String message, ClientHandler sender) {
+    public void processMessage(String message, ClientHandler sender) {
+        mailbox.post(() -> dispatch(parser.parse(message), sender));
+    }
+
+    // Processa uma linha de texto ainda em bytes (modo NIO), sem convertê-la em String.
+    // O array passa a ser da sessão (o parser o lê mais tarde, na caixa): quem chama não pode reutilizá-lo.
+    public void processLine(byte[] data, int offset, int length, ClientHandler sender) {
+        mailbox.post(() -> dispatch(parser.parse(data, offset, length), sender));
+    }
+
+    /**
+     * Processa um quadro do protocolo binário (BinaryProtocol) recebido de um dos jogadores.
+     * @param data Buffer com o opcode em data[offset] seguido dos dados.
+     * @param length Tamanho do quadro (opcode + dados).
+     * O array passa a ser da sessão, como em processLine.
+     */
+    public void processFrame(byte[] data, int offset, int length, ClientHandler sender) {
+        mailbox.post(() -> dispatchFrame(data, offset, length, sender));
+    }
+
+    private void dispatchFrame(byte[] data, int offset, int length, ClientHandler sender) {
+        if (gameEnded || (sender != player1 && sender != player2)) return;
+        byte opcode = data[offset];
+        if (opcode == BinaryProtocol.TEXT) {
+            // Comandos raros (chat) chegam como uma linha do protocolo de texto.
+            dispatch(parser.parse(data, offset + 1, length - 1), sender);
+            return;
+        }
+        int senderId = (sender == player1) ? 1 : 2;
+        switch (opcode) {
+            case BinaryProtocol.FORFEIT:
+                handleForfeit(sender);
+                return;
+            case BinaryProtocol.END_CHAIN_JUMP:
+                if (isChainJumpActive && senderId == currentPlayer) {
+                    isChainJumpActive = false;
+                    finishTurn(sender);
+                }
+                return;
+            default:
+                break;
+        }
+        // Os demais comandos só valem na vez do jogador e trazem casas 0..99.
+        if (senderId != currentPlayer) {
+            if (opcode == BinaryProtocol.MOVE || opcode == BinaryProtocol.MOVE_PATH) {
+                sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Não é o seu turno.");
+            }
+            return;
+        }
+        int squares = length - 1;
+        for (int i = 0; i < squares && squares > 0; i++) {
+            if (BinaryProtocol.squareAt(data, offset + 1 + i) < 0) squares = -1; // Casa fora do tabuleiro.
+        }
+        // Como no texto (OUT_OF_RANGE): um movimento com casa fora do tabuleiro conta como movimento inválido.
+        if (squares < 0 && (opcode == BinaryProtocol.MOVE || opcode == BinaryProtocol.MOVE_PATH)) {
+            if (senderId == 1) player1InvalidAttempts++; else player2InvalidAttempts++;
+            sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Movimento inválido.");
+            return;
+        }
+        switch (opcode) {
+            case BinaryProtocol.MOVE:
+                if (squares != 2) break;
+                handleMove(Board.rowOf(data[offset + 1]), Board.colOf(data[offset + 1]), Board.rowOf(data[offset + 2]), Board.colOf(data[offset + 2]), sender);
+                return;
+            case BinaryProtocol.MOVE_PATH:
+                if (squares < 2 || squares > pathBuffer.length) break;
+                for (int i = 0; i < squares; i++) pathBuffer[i] = data[offset + 1 + i];
+                applyPath(squares - 1, sender);
+                return;
+            case BinaryProtocol.GET_VALID_MOVES:
+                if (squares != 1) break;
+                sendValidMoves(Board.rowOf(data[offset + 1]), Board.colOf(data[offset + 1]), sender);
+                return;
+            case BinaryProtocol.GET_JUMP_PATHS:
+                if (squares != 1) break;
+                sendJumpPaths(Board.rowOf(data[offset + 1]), Board.colOf(data[offset + 1]), sender);
+                return;
+            default:
+                break;
+        }
+        sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Comando malformado.");
+    }
+
+    // Trata o comando que o parser acabou de decodificar; chamado por quem drena a caixa de mensagens.
+    private void dispatch(int result, ClientHandler sender) {
         if (gameEnded) return; // Se o jogo já terminou, ignora a mensagem.
+        if (sender != player1 && sender != player2) return; // Conexão substituída por uma retomada.
+        if (result == CommandParser.UNKNOWN_COMMAND) return; // Comandos desconhecidos são ignorados.
 
-        // Divide a mensagem em comando e dados.
-        String[] parts = message.split(Protocol.SEPARATOR, 2);
-        String command = parts[0];
         int senderId = (sender == player1) ? 1 : 2;
 
         // Tratar os diferentes comandos do protocolo.
-        switch (command) {
-            case Protocol.MOVE:
-                // Se o comando for MOVE e for o turno do jogador atual, processa a jogada.
-                if (senderId == currentPlayer) handleMove(parts[1], sender);
-                else sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Não é o seu turno.");
+        switch (parser.getCommand()) {
+            case CommandParser.MOVE:
+            case CommandParser.MOVE_PATH:
+                // Só o jogador da vez pode mover.
+                if (senderId != currentPlayer) {
+                    sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Não é o seu turno.");
+                } else if (result == CommandParser.OUT_OF_RANGE || result == CommandParser.INVALID_MOVE) {
+                    // Casa fora do tabuleiro (ou negativa) e MOVE com casas a mais contam como movimento inválido.
+                    if (senderId == 1) player1InvalidAttempts++; else player2InvalidAttempts++;
+                    sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Movimento inválido.");
+                } else if (result != CommandParser.OK) {
+                    sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Comando de movimento malformado.");
+                } else if (parser.getCommand() == CommandParser.MOVE) {
+                    int from = parser.getSquare(0);
+                    int to = parser.getSquare(1);
+                    handleMove(Board.rowOf(from), Board.colOf(from), Board.rowOf(to), Board.colOf(to), sender);
+                } else {
+                    // Um salto em cadeia inteiro em uma única mensagem.
+                    int count = parser.getSquareCount();
+                    System.arraycopy(parser.getSquares(), 0, pathBuffer, 0, count);
+                    applyPath(count - 1, sender);
+                }
                 break;
-            case Protocol.CHAT:
+            case CommandParser.CHAT:
                 // Se for uma mensagem de chat, encaminha para ambos os jogadores.
-                broadcastChat(parts[1], senderId);
+                if (result == CommandParser.OK) broadcastChat(parser.getPayload(), senderId);
                 break;
-            case Protocol.FORFEIT:
+            case CommandParser.FORFEIT:
                 // Se um jogador desistir, encerra o jogo.
                 handleForfeit(sender);
                 break;
-            case Protocol.END_CHAIN_JUMP:
+            case CommandParser.END_CHAIN_JUMP:
                 // Se um salto em cadeia estiver ativo e for o turno do jogador
                 if (isChainJumpActive && senderId == currentPlayer) {
                     isChainJumpActive = false;
-
-                     // Verifica novamente por uma condição de vitória
-                    if (board.checkForWinner(currentPlayer)) {
-                        String winnerName = (currentPlayer == 1) ? player1Name : player2Name;
-                        winnerInfo = winnerName + " ganhou por chegar no destino!";
-                        endGame(sender, (sender == player1) ? player2 : player1, Protocol.VICTORY, Protocol.DEFEAT);
-                    } else {
-                        switchTurn();
-                    }
+                    finishTurn(sender);
                 }
                 break;
-
-                // Se os movimentos do jogador atual são válidos
-            case Protocol.GET_VALID_MOVES:
-                // Se for o turno do jogador
-                if (senderId == currentPlayer) {
-                    //Processa as coordenadas, obtém os movimentos válidos do tabuleiro
-                    String[] coords = parts[1].split(Protocol.SEPARATOR);
-                    int row = Integer.parseInt(coords[0]);
-                    int col = Integer.parseInt(coords[1]);
-                    
-                    //Converte a lista de movimentos para uma string e a envia de volta ao cliente.
-                    List<Point> moves = board.getValidMoves(row, col, isChainJumpActive);
-                    String movesStr = moves.stream().map(p -> p.x + "," + p.y).collect(Collectors.joining(";"));
-                    sender.sendMessage(Protocol.VALID_MOVES_LIST + Protocol.SEPARATOR + movesStr);
+            case CommandParser.GET_VALID_MOVES:
+            case CommandParser.GET_JUMP_PATHS:
+                // Consultas só valem no turno do jogador.
+                if (senderId != currentPlayer) break;
+                if (result != CommandParser.OK) {
+                    sender.sendMessage(Protocol.ERROR + Protocol.SEPARATOR + "Comando malformado.");
+                    break;
                 }
+                int square = parser.getSquare(0);
+                if (parser.getCommand() == CommandParser.GET_VALID_MOVES) sendValidMoves(Board.rowOf(square), Board.colOf(square), sender);
+                else sendJumpPaths(Board.rowOf(square), Board.colOf(square), sender);
                 break;
         }
     }
@@ -240,11 +524,11 @@ public class GameSession implements Runnable {
     //Definir e comunicar o turno atual
     private void updateTurn() {
         if (currentPlayer == 1) {
-            player1.sendMessage(Protocol.SET_TURN + Protocol.SEPARATOR + "YOUR_TURN");
-            player2.sendMessage(Protocol.SET_TURN + Protocol.SEPARATOR + "OPPONENT_TURN");
+            player1.sendTurn(true);
+            player2.sendTurn(false);
         } else {
-            player2.sendMessage(Protocol.SET_TURN + Protocol.SEPARATOR + "YOUR_TURN");
-            player1.sendMessage(Protocol.SET_TURN + Protocol.SEPARATOR + "OPPONENT_TURN");
+            player2.sendTurn(true);
+            player1.sendTurn(false);
         }
     }
 
@@ -259,8 +543,8 @@ public class GameSession implements Runnable {
     private void broadcastChat(String chatMessage, int senderId) {
         String senderName = (senderId == 1) ? player1Name : player2Name;
         String formattedMessage = Protocol.CHAT_MESSAGE + Protocol.SEPARATOR + senderName + ": " + chatMessage;
-        player1.sendMessage(formattedMessage);
-        player2.sendMessage(formattedMessage);
+        player1.sendChat(formattedMessage);
+        player2.sendChat(formattedMessage);
         chatHistory.add(senderName + ": " + chatMessage);
     }
     
@@ -6,19 +6,80 @@ import javax.swing.JOptionPane;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import java.awt.Font;
-import br.com.victorsfec.halma.shared.Protocol;
-import java.io.BufferedReader;
+import java.awt.GraphicsEnvironment;
+import br.com.victorsfec.halma.ai.MctsEngine;
+import br.com.victorsfec.halma.ai.MoveSearcher;
+import br.com.victorsfec.halma.ai.ParallelSearchEngine;
+import br.com.victorsfec.halma.ai.SearchEngine;
+import br.com.victorsfec.halma.ai.TranspositionTable;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class HalmaServer {
-    // Lista sincronizada para armazenar clientes que estão aguardando um oponente.
-    private static final List<ClientHandler> waitingClients = new ArrayList<>();
+    // Fila de espera: pareia por rating na thread própria e entrega ao bot quem espera demais.
+    private static Matchmaker<ClientHandler> matchmaker;
+
+    // Conexões que o sistema operacional pode enfileirar antes do accept (rajadas, por exemplo depois de reiniciar o servidor).
+    static final int ACCEPT_BACKLOG = 1024;
+    // Resolução do timer e posições da roda (uma volta cobre 51,2 s; prazos maiores dão mais voltas).
+    private static final long TIMER_TICK_MILLIS = 100;
+    private static final int TIMER_WHEEL_SIZE = 512;
+
+    // Opções da linha de comando (porta, bot).
+    private static ServerOptions options = new ServerOptions();
+    // Timer compartilhado (uma thread só) para o prazo do handshake, os heartbeats das conexões e as métricas periódicas.
+    private static final HashedWheelTimer timer = new HashedWheelTimer("halma-timer", TIMER_TICK_MILLIS, TIMER_WHEEL_SIZE);
+    private static String lastMetrics = ""; // Último resumo registrado (só a thread do timer usa).
+    // Executor limitado onde os bots pensam, para que as buscas nunca ocupem as threads das sessões humanas.
+    private static ExecutorService botExecutor;
+    // Pool das threads auxiliares da busca paralela, limitado para não disputar núcleos com as sessões.
+    private static ForkJoinPool searchPool;
+    // Fábrica das threads de cada conexão (de plataforma ou virtuais, conforme --thread-mode).
+    private static ThreadFactory connectionThreads;
+    // Executor compartilhado que drena as caixas de mensagens das sessões.
+    private static ExecutorService sessionScheduler;
 
     public static void main(String[] args) {
+        try {
+            options = ServerOptions.parse(args);
+            Log.configure(options.logLevel, options.logCategories);
+            OutboundQueue.configure(options.slowClientPolicy, options.outboundCapacity);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        botExecutor = new ThreadPoolExecutor(options.botThreads, options.botThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(options.botQueueSize), daemonThreads("halma-bot"));
+        searchPool = new ForkJoinPool(options.searchThreads);
+        matchmaker = new Matchmaker<>(HalmaServer::startSession, options.botWaitMillis, HalmaServer::pairWithBot);
+        if ("virtual".equals(options.threadMode)) {
+            connectionThreads = Thread.ofVirtual().name("halma-client-", 0).factory();
+            sessionScheduler = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("halma-session-", 0).factory());
+        } else {
+            connectionThreads = Thread.ofPlatform().name("halma-client-", 0).factory();
+            sessionScheduler = Executors.newFixedThreadPool(options.sessionThreads, Thread.ofPlatform().name("halma-session-", 0).daemon().factory());
+        }
+        if (options.metricsIntervalMillis > 0) {
+            timer.schedule(HalmaServer::logMetrics, options.metricsIntervalMillis);
+        }
+
+        // Com --port=N o servidor inicia direto, sem a janela de configuração.
+        if (options.port > 0) {
+            if (!GraphicsEnvironment.isHeadless()) {
+                SwingUtilities.invokeLater(() -> createAndShowGUI(options.port));
+            }
+            runServerLogic(options.port);
+            return;
+        }
+
          // Solicita ao usuário para digitar a porta. "12345" é o valor padrão.
         Object portStr = JOptionPane.showInputDialog(null, "Digite a porta para iniciar o servidor:", "Configuração do Servidor", JOptionPane.QUESTION_MESSAGE, null, null, "12345");
 
@@ -57,55 +118,121 @@ public class HalmaServer {
         frame.setVisible(true);
     }
 
+    // Cria uma nova sessão de jogo para os dois jogadores.
+    private static void startSession(ClientHandler player1, ClientHandler player2) {
+        Log.info(Log.Category.SERVER, "Pareando jogadores '" + player1.getPlayerName() + "' e '" + player2.getPlayerName() + "'.");
+        new GameSession(player1, player2, sessionScheduler).start();
+    }
+
+    // Pareia com o bot um jogador que ficou sozinho na fila por --bot-wait (chamado pelo matchmaker).
+    private static void pairWithBot(ClientHandler waitingClient) {
+        MoveSearcher engine;
+        if ("mcts".equals(options.botEngine)) {
+            engine = new MctsEngine(options.botCores);
+        } else {
+            // A tabela é alocada por partida, então o tamanho vem de --bot-table-bits (pequeno por padrão).
+            engine = options.botCores > 1
+                    ? new ParallelSearchEngine(searchPool, options.botCores, options.botTableBits)
+                    : new SearchEngine(new TranspositionTable(options.botTableBits));
+        }
+        startSession(waitingClient, new BotClientHandler(botExecutor, engine, options.botThinkMillis));
+    }
+
+    // Fábrica de threads daemon com nome, para que os executores do bot não impeçam o encerramento.
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Agenda o encerramento de uma conexão que ainda não se identificou.
+     * @return A tarefa agendada, a ser cancelada quando o handshake terminar; null se não houver prazo.
+     */
+    static HashedWheelTimer.Timeout scheduleHandshakeTimeout(Runnable onTimeout) {
+        if (options.handshakeTimeoutMillis <= 0) return null;
+        return timer.schedule(onTimeout, options.handshakeTimeoutMillis);
+    }
+
+    static long getHandshakeTimeoutMillis() {
+        return options.handshakeTimeoutMillis;
+    }
+
+    static HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    static long getHeartbeatIntervalMillis() {
+        return options.heartbeatIntervalMillis;
+    }
+
+    static long getIdleTimeoutMillis() {
+        return options.idleTimeoutMillis;
+    }
+
+    static long getResumeGraceMillis() {
+        return options.resumeGraceMillis;
+    }
+
+    // Cria uma thread do mesmo tipo das conexões (usada pela thread de escrita de cada cliente).
+    static Thread newConnectionThread(Runnable task) {
+        return connectionThreads.newThread(task);
+    }
+
+    // Registra a ocupação das filas de saída, só quando algo mudou desde o último registro.
+    private static void logMetrics() {
+        timer.schedule(HalmaServer::logMetrics, options.metricsIntervalMillis);
+        String metrics = OutboundQueue.describe();
+        if (metrics.equals(lastMetrics)) return;
+        lastMetrics = metrics;
+        Log.info(Log.Category.NET, metrics);
+    }
+
+    /**
+     * Recebe um jogador que acabou de se identificar (usado pelos dois modos de E/S): com um token de retomada válido
+     * ele volta à sua partida; senão entra na fila de espera.
+     * @param resumeToken Token enviado em RESUME, ou null para SET_NAME.
+     */
+    static void admitPlayer(ClientHandler clientHandler, String resumeToken) {
+        if (resumeToken != null && GameSession.resume(resumeToken, clientHandler)) return;
+        clientHandler.sendMessage("INFO:Aguardando oponente...");
+        clientHandler.flush();
+        registerWaitingPlayer(clientHandler);
+    }
+
+    // Coloca um jogador identificado na fila de espera; o pareamento é feito pelo matchmaker.
+    static void registerWaitingPlayer(ClientHandler clientHandler) {
+        clientHandler.setWaitingTicket(matchmaker.enqueue(clientHandler, Ratings.get(clientHandler.getPlayerName())));
+    }
+
     //Lógica principal do servidor: ouvir por conexões e parear jogadores.
     private static void runServerLogic(int port) {
-        System.out.println("Halma Server em execução na porta " + port + "...");
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
+        Log.info(Log.Category.SERVER, "Halma Server em execução na porta " + port + " (E/S " + options.io + ", threads " + options.threadMode + ")...");
+        if ("nio".equals(options.io)) {
+            // Modo NIO: poucos event loops atendem todos os clientes.
+            try {
+                new NioServer(port, options.eventLoops).run();
+            } catch (IOException e) {
+                Log.error(Log.Category.SERVER, "Erro no servidor: " + e);
+            }
+            return;
+        }
+        try (ServerSocket serverSocket = new ServerSocket(port, ACCEPT_BACKLOG)) {
             // Loop infinito para aceitar conexões continuamente.
             while (true) {
                 // Aguarda um cliente se conectar e cria um Socket para ele.
                 Socket clientSocket = serverSocket.accept();
-                System.out.println("Novo cliente conectado: " + clientSocket.getInetAddress());
+                Log.info(Log.Category.NET, "Novo cliente conectado: " + clientSocket.getInetAddress());
 
-                // Thread dedicada para gerenciar a comunicação com este cliente.
+                // A thread da conexão faz o handshake (SET_NAME) e só então entra na fila de espera;
+                // a thread de accept nunca lê do cliente, então um cliente lento não atrasa os outros.
                 ClientHandler clientHandler = new ClientHandler(clientSocket);
-
-                try {
-                    BufferedReader in = clientHandler.getInputStream();
-                    String nameLine = in.readLine();
-
-                    if (nameLine != null && nameLine.startsWith(Protocol.SET_NAME)) {
-                        String playerName = nameLine.split(Protocol.SEPARATOR, 2)[1];
-                        clientHandler.setPlayerName(playerName);
-                        System.out.println("SERVER: Nome do jogador definido como: " + playerName);
-
-                        // Garantir que a lista de espera seja acessada por uma thread de cada vez.
-                        synchronized (waitingClients) {
-                            waitingClients.add(clientHandler);
-                            clientHandler.start(); // Inicia a thread do ClientHandler.
-                            
-                            // Se houver dois ou mais clientes esperando, uma nova partida é criada.
-                            if (waitingClients.size() >= 2) {
-                                ClientHandler player1 = waitingClients.remove(0);
-                                ClientHandler player2 = waitingClients.remove(0);
-                                System.out.println("Pareando jogadores '" + player1.getPlayerName() + "' e '" + player2.getPlayerName() + "'.");
-                                
-                                // Cria uma nova sessão de jogo para os dois jogadores.
-                                GameSession gameSession = new GameSession(player1, player2);
-                                new Thread(gameSession).start();
-                            }
-                        }
-                    } else {
-                        System.err.println("Erro: Primeira mensagem do cliente não foi SET_NAME. Desconectando.");
-                        clientSocket.close();
-                    }
-                } catch (IOException e) {
-                    System.err.println("Erro ao comunicar com o cliente. Desconectando. " + e.getMessage());
-                    clientSocket.close();
-                }
+                connectionThreads.newThread(clientHandler).start();
             }
         } catch (IOException e) {
-            System.err.println("Erro no servidor: " + e.getMessage());
+            Log.error(Log.Category.SERVER, "Erro no servidor: " + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -0,0 +1,129 @@
+package br.com.victorsfec.halma.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer de roda (hashed wheel) compartilhado pelos prazos do servidor: handshake, heartbeats e métricas.
+ *
+ * Uma única thread avança a roda a cada tick e executa as tarefas vencidas na posição atual; agendar e
+ * cancelar custam O(1), sem uma thread ou tarefa de executor por conexão. A precisão é de um tick, o que
+ * basta para prazos de segundos. As tarefas rodam na thread da roda, então devem ser curtas (enfileirar
+ * uma mensagem, fechar um socket) e nunca bloquear.
+ */
+public final class HashedWheelTimer {
+    // Estados de um Timeout.
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    // Uma tarefa agendada.
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadline; // Em nanos desde o início da roda.
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long remainingRounds; // Voltas completas da roda que ainda faltam (só a thread da roda usa).
+        private Timeout next;         // Próximo na mesma posição da roda (só a thread da roda usa).
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancela a tarefa.
+         * @return false se ela já venceu (está rodando ou rodou) ou já tinha sido cancelada.
+         */
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] wheel;
+    // Tarefas recém-agendadas, ainda não colocadas na roda (vários produtores, a thread da roda consome).
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private long tick; // Só a thread da roda usa.
+
+    /**
+     * @param wheelSize Posições da roda (potência de 2); uma volta cobre wheelSize * tickMillis.
+     */
+    public HashedWheelTimer(String threadName, long tickMillis, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) throw new IllegalArgumentException("O tamanho da roda precisa ser potência de 2: " + wheelSize);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.wheel = new Timeout[wheelSize];
+        Thread worker = new Thread(this::run, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Agenda uma tarefa para daqui a delayMillis; pode ser chamado de qualquer thread.
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)));
+        added.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (true) {
+            // Espera o fim do tick atual.
+            long tickEnd = (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime() - startNanos) < tickEnd) LockSupport.parkNanos(tickEnd - now);
+
+            transferAdded();
+            int index = (int) (tick & mask);
+            wheel[index] = expire(wheel[index]);
+            tick++;
+        }
+    }
+
+    // Coloca as tarefas novas na posição do tick em que vencem.
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.isCancelled()) continue;
+            long due = timeout.deadline / tickNanos;
+            timeout.remainingRounds = Math.max(0, due - tick) / wheel.length;
+            int index = (int) (Math.max(due, tick) & mask); // Prazo já passado: vence neste tick.
+            timeout.next = wheel[index];
+            wheel[index] = timeout;
+        }
+    }
+
+    // Executa as tarefas vencidas de uma posição; devolve a lista com as que ficam para as próximas voltas.
+    private Timeout expire(Timeout head) {
+        Timeout kept = null;
+        Timeout timeout = head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            if (timeout.isCancelled()) {
+                // Descartada.
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                timeout.next = kept;
+                kept = timeout;
+            } else if (timeout.state.compareAndSet(WAITING, EXPIRED)) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    // Uma tarefa com erro não pode parar a roda.
+                    Log.error(Log.Category.SERVER, "Erro em tarefa do timer: " + e);
+                }
+            }
+            timeout = next;
+        }
+        return kept;
+    }
+}
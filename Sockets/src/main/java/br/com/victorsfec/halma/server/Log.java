@@ -0,0 +1,179 @@
+package br.com.victorsfec.halma.server;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log assíncrono do servidor. As threads do jogo só colocam a mensagem em um buffer circular
+ * limitado e sem locks; uma thread própria ("halma-log") escreve no console em lotes.
+ * Se o buffer encher, a mensagem é descartada (e contada) em vez de bloquear quem registrou.
+ *
+ * Cada mensagem tem um nível e uma categoria, e só entra no buffer se os dois estiverem habilitados.
+ * Mensagens caras de montar (o rastreio do protocolo) devem ser protegidas com isEnabled(),
+ * para que não custem nada quando desligadas.
+ */
+public final class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    // SERVER: inicialização e pareamento; NET: conexões; SESSION: eventos das partidas;
+    // PROTOCOL: cada mensagem enviada (nível DEBUG); BOT: jogadores virtuais.
+    public enum Category { SERVER, NET, SESSION, PROTOCOL, BOT }
+
+    // Capacidade do buffer circular (potência de 2).
+    private static final int CAPACITY = 8 * 1024;
+    private static final int MASK = CAPACITY - 1;
+
+    private static volatile int minLevel = Level.INFO.ordinal();
+    private static volatile int categoryMask = (1 << Category.values().length) - 1;
+
+    // Fila limitada de vários produtores e um consumidor: cada posição tem um número de sequência
+    // que diz se ela está livre para a volta atual do produtor ou pronta para o consumidor.
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private static final Level[] levels = new Level[CAPACITY];
+    private static final String[] messages = new String[CAPACITY];
+    private static final AtomicLong tail = new AtomicLong();
+    private static long head; // Só o consumidor (com o lock de Log.class) usa.
+
+    private static final LongAdder dropped = new LongAdder();
+    private static long reportedDrops; // Descartes já avisados no console (só o consumidor usa).
+    private static volatile boolean consumerWaiting = false;
+    private static final Thread consumer;
+
+    // Saídas originais, capturadas antes de qualquer redirecionamento.
+    private static final PrintStream out = System.out;
+    private static final PrintStream err = System.err;
+    private static final StringBuilder outBatch = new StringBuilder();
+    private static final StringBuilder errBatch = new StringBuilder();
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) sequences.set(i, i);
+        consumer = new Thread(Log::consume, "halma-log");
+        consumer.setDaemon(true);
+        consumer.start();
+        // Escreve o que ainda estiver no buffer quando o servidor encerrar.
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drain, "halma-log-shutdown"));
+    }
+
+    private Log() {
+    }
+
+    /**
+     * Define o nível mínimo e as categorias habilitadas.
+     * @param level debug, info, warn, error ou off; null mantém o atual.
+     * @param categories Lista separada por vírgulas (ex.: "server,session"), "all" ou null para manter as atuais.
+     */
+    public static void configure(String level, String categories) {
+        if (level != null) {
+            try {
+                minLevel = Level.valueOf(level.toUpperCase()).ordinal();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Nível de log desconhecido: " + level + " (use debug, info, warn, error ou off)");
+            }
+        }
+        if (categories != null) {
+            int mask = 0;
+            for (String name : categories.split(",")) {
+                if (name.isBlank()) continue;
+                if (name.trim().equalsIgnoreCase("all")) {
+                    mask = (1 << Category.values().length) - 1;
+                    continue;
+                }
+                try {
+                    mask |= 1 << Category.valueOf(name.trim().toUpperCase()).ordinal();
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Categoria de log desconhecida: " + name + " (use server, net, session, protocol, bot ou all)");
+                }
+            }
+            categoryMask = mask;
+        }
+    }
+
+    public static boolean isEnabled(Category category, Level level) {
+        return level.ordinal() >= minLevel && (categoryMask & (1 << category.ordinal())) != 0;
+    }
+
+    public static void debug(Category category, String message) { log(category, Level.DEBUG, message); }
+    public static void info(Category category, String message) { log(category, Level.INFO, message); }
+    public static void warn(Category category, String message) { log(category, Level.WARN, message); }
+    public static void error(Category category, String message) { log(category, Level.ERROR, message); }
+
+    // Quantidade de mensagens descartadas porque o buffer estava cheio.
+    public static long getDropped() {
+        return dropped.sum();
+    }
+
+    private static void log(Category category, Level level, String message) {
+        if (!isEnabled(category, level)) return;
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & MASK);
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (tail.weakCompareAndSetVolatile(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.increment(); // Buffer cheio: o consumidor ainda não liberou esta posição.
+                return;
+            } else {
+                position = tail.get(); // Outro produtor pegou esta posição.
+            }
+        }
+        levels[index] = level;
+        messages[index] = message;
+        sequences.setRelease(index, position + 1);
+        if (consumerWaiting) LockSupport.unpark(consumer);
+    }
+
+    private static void consume() {
+        while (true) {
+            if (drain() == 0) {
+                consumerWaiting = true;
+                // Confere de novo depois de avisar, para não dormir com uma mensagem recém-publicada.
+                if (isEmpty()) LockSupport.park();
+                consumerWaiting = false;
+            }
+        }
+    }
+
+    private static boolean isEmpty() {
+        synchronized (Log.class) {
+            return sequences.getAcquire((int) (head & MASK)) != head + 1;
+        }
+    }
+
+    // Escreve tudo o que estiver pronto no buffer; devolve quantas mensagens saíram.
+    private static int drain() {
+        synchronized (Log.class) {
+            int count = 0;
+            while (true) {
+                int index = (int) (head & MASK);
+                if (sequences.getAcquire(index) != head + 1) break;
+                StringBuilder batch = levels[index].ordinal() >= Level.WARN.ordinal() ? errBatch : outBatch;
+                batch.append(messages[index]).append(System.lineSeparator());
+                messages[index] = null;
+                sequences.setRelease(index, head + CAPACITY);
+                head++;
+                count++;
+            }
+            long lost = dropped.sum() - reportedDrops;
+            reportedDrops += lost;
+            if (lost > 0) errBatch.append("[log] ").append(lost).append(" mensagem(ns) descartada(s): buffer cheio.").append(System.lineSeparator());
+            // Um print por lote, em vez de um por mensagem.
+            if (outBatch.length() > 0) {
+                out.print(outBatch);
+                out.flush();
+                outBatch.setLength(0);
+            }
+            if (errBatch.length() > 0) {
+                err.print(errBatch);
+                err.flush();
+                errBatch.setLength(0);
+            }
+            return count;
+        }
+    }
+}
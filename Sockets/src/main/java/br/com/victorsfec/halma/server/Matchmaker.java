@@ -0,0 +1,173 @@
+package br.com.victorsfec.halma.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fila de espera com pareamento por rating.
+ *
+ * As threads de conexão só colocam o jogador em uma fila concorrente (sem lock); o pareamento roda
+ * na thread própria do matchmaker, que distribui os jogadores em faixas de rating e pareia cada um
+ * com o oponente de rating mais próximo dentro de uma janela. A janela começa estreita e se alarga
+ * com o tempo de espera, para que ninguém fique preso só por não ter um oponente parecido.
+ *
+ * Quem espera mais que o limite sem oponente é entregue a outra ação (no servidor, enfrentar o bot).
+ * Um jogador na fila pode ser retirado por outra thread com Ticket.cancel().
+ *
+ * @param <T> Tipo do jogador (ClientHandler no servidor de sockets).
+ */
+public final class Matchmaker<T> {
+    // Faixas de rating de BUCKET_WIDTH pontos cobrindo 0..MAX_RATING.
+    private static final int BUCKET_WIDTH = 100;
+    private static final int MAX_RATING = 3_000;
+    // Janela inicial de diferença de rating, quanto ela cresce por segundo de espera e o limite.
+    private static final int INITIAL_WINDOW = 100;
+    private static final int WINDOW_GROWTH_PER_SECOND = 50;
+    private static final int MAX_WINDOW = MAX_RATING;
+    // Intervalo entre rodadas periódicas, que alargam as janelas de quem ainda espera.
+    private static final long TICK_MILLIS = 250;
+
+    // Ação executada para cada par formado (na thread do matchmaker).
+    public interface Pairing<T> {
+        void pair(T player1, T player2);
+    }
+
+    // Ação para quem esperou o limite sem oponente (na thread do matchmaker).
+    public interface Timeout<T> {
+        void expired(T player);
+    }
+
+    // Um jogador na fila. Quem conseguir claim() primeiro (o matchmaker ou cancel()) fica com ele.
+    public static final class Ticket<T> {
+        private final T player;
+        private final int rating;
+        private final long enqueuedAt = System.nanoTime();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Ticket(T player, int rating) {
+            this.player = player;
+            this.rating = rating;
+        }
+
+        // Retira o jogador da fila; devolve false se ele já foi pareado ou retirado.
+        public boolean cancel() {
+            return claim();
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        boolean isClaimed() {
+            return claimed.get();
+        }
+    }
+
+    private final Pairing<T> pairing;
+    private final long waitLimitNanos;
+    private final Timeout<T> timeout;
+    // Chegadas ainda não distribuídas nas faixas (muitos produtores, um consumidor).
+    private final Queue<Ticket<T>> arrivals = new ConcurrentLinkedQueue<>();
+    // Faixas de rating, em ordem de chegada; só a thread do matchmaker as usa.
+    private final List<ArrayDeque<Ticket<T>>> buckets = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean roundScheduled = new AtomicBoolean();
+
+    /**
+     * @param waitLimitMillis Espera máxima sem oponente antes de chamar timeout (negativo: sem limite).
+     */
+    public Matchmaker(Pairing<T> pairing, long waitLimitMillis, Timeout<T> timeout) {
+        this.pairing = pairing;
+        this.waitLimitNanos = waitLimitMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(waitLimitMillis);
+        this.timeout = timeout;
+        for (int i = 0; i < MAX_RATING / BUCKET_WIDTH; i++) buckets.add(new ArrayDeque<>());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "halma-matchmaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::round, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Coloca um jogador na fila e agenda uma rodada de pareamento; não bloqueia.
+    public Ticket<T> enqueue(T player, int rating) {
+        Ticket<T> ticket = new Ticket<>(player, rating);
+        arrivals.add(ticket);
+        // Várias chegadas seguidas disparam uma única rodada.
+        if (roundScheduled.compareAndSet(false, true)) scheduler.execute(this::round);
+        return ticket;
+    }
+
+    // Uma rodada: distribui as chegadas e forma todos os pares possíveis com as janelas atuais.
+    private void round() {
+        roundScheduled.set(false);
+        try {
+            Ticket<T> arrival;
+            while ((arrival = arrivals.poll()) != null) buckets.get(bucketOf(arrival.rating)).add(arrival);
+            for (ArrayDeque<Ticket<T>> bucket : buckets) bucket.removeIf(Ticket::isClaimed);
+
+            long now = System.nanoTime();
+            // O primeiro de cada faixa é o que espera há mais tempo nela; a maior janela limita a busca.
+            int reach = 0;
+            for (ArrayDeque<Ticket<T>> bucket : buckets) {
+                if (!bucket.isEmpty()) reach = Math.max(reach, window(bucket.peekFirst(), now));
+            }
+            for (ArrayDeque<Ticket<T>> bucket : buckets) {
+                for (Ticket<T> ticket : bucket) {
+                    if (ticket.isClaimed()) continue;
+                    Ticket<T> opponent = findOpponent(ticket, reach, now);
+                    if (opponent != null) {
+                        if (!ticket.claim()) continue; // Foi cancelado enquanto a rodada rodava.
+                        if (!opponent.claim()) {
+                            ticket.claimed.set(false); // Devolve: o oponente acabou de ser cancelado.
+                            continue;
+                        }
+                        pairing.pair(ticket.player, opponent.player);
+                    } else if (now - ticket.enqueuedAt >= waitLimitNanos && ticket.claim()) {
+                        timeout.expired(ticket.player);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Um erro ao iniciar uma partida não pode parar o matchmaker.
+            Log.error(Log.Category.SERVER, "Erro no matchmaker: " + e);
+        }
+    }
+
+    // O oponente de rating mais próximo dentro da janela de qualquer um dos dois; no empate, o que espera há mais tempo.
+    private Ticket<T> findOpponent(Ticket<T> ticket, int reach, long now) {
+        int window = window(ticket, now);
+        Ticket<T> best = null;
+        int bestDifference = Integer.MAX_VALUE;
+        int first = bucketOf(ticket.rating - reach);
+        int last = bucketOf(ticket.rating + reach);
+        for (int i = first; i <= last; i++) {
+            for (Ticket<T> candidate : buckets.get(i)) {
+                if (candidate == ticket || candidate.isClaimed()) continue;
+                int difference = Math.abs(candidate.rating - ticket.rating);
+                if (difference > window && difference > window(candidate, now)) continue;
+                if (difference < bestDifference || (difference == bestDifference && candidate.enqueuedAt < best.enqueuedAt)) {
+                    best = candidate;
+                    bestDifference = difference;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int window(Ticket<?> ticket, long now) {
+        long waitedSeconds = TimeUnit.NANOSECONDS.toSeconds(now - ticket.enqueuedAt);
+        return (int) Math.min(MAX_WINDOW, INITIAL_WINDOW + waitedSeconds * WINDOW_GROWTH_PER_SECOND);
+    }
+
+    private static int bucketOf(int rating) {
+        return Math.max(0, Math.min(MAX_RATING / BUCKET_WIDTH - 1, rating / BUCKET_WIDTH));
+    }
+}
@@ -0,0 +1,231 @@
+package br.com.victorsfec.halma.server;
+
+import br.com.victorsfec.halma.shared.BinaryProtocol;
+import br.com.victorsfec.halma.shared.Protocol;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Conexão de um cliente no modo NIO. Para a GameSession é um ClientHandler comum,
+ * mas não tem thread própria: o event loop lê o canal, separa as linhas (ou os quadros, no protocolo binário)
+ * e chama a sessão. As mensagens podem ser enviadas de qualquer thread (sessão, bot); elas entram na fila
+ * de saída limitada e, no flush(), o event loop do canal as escreve juntas com uma única escrita gather.
+ */
+public class NioClientHandler extends ClientHandler {
+    // Tamanho do buffer direto de leitura; uma linha maior que isso derruba a conexão.
+    static final int BUFFER_SIZE = 8 * 1024;
+    private static final byte[] PONG_LINE = Protocol.PONG.getBytes(StandardCharsets.US_ASCII);
+
+    private final SocketChannel channel;
+    private final NioServer.EventLoop loop;
+    private SelectionKey key;
+    // Usados só pela thread do event loop.
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // Mensagens retiradas da fila de saída e ainda não escritas por completo (o socket encheu).
+    private ByteBuffer[] pending = new ByteBuffer[16];
+    private int pendingCount;
+    private boolean named = false;
+    private final HashedWheelTimer.Timeout handshakeTimeout; // Prazo do SET_NAME; null se não houver.
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    NioClientHandler(SocketChannel channel, NioServer.EventLoop loop) {
+        super();
+        this.channel = channel;
+        this.loop = loop;
+        this.handshakeTimeout = HalmaServer.scheduleHandshakeTimeout(() -> loop.execute(this::expireHandshake));
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    // Pede ao event loop que escreva o que está na fila; vários flush() seguidos viram uma só escrita.
+    @Override
+    public void flush() {
+        getOutbound().requestFlush(); // Fecha o lote; o event loop é quem escreve.
+        if (!getOutbound().isEmpty() && flushScheduled.compareAndSet(false, true)) loop.requestFlush(this);
+    }
+
+    // Fila de saída cheia ou cliente mudo: desconecta no event loop e avisa a sessão.
+    @Override
+    protected void forceDisconnect() {
+        loop.execute(this::disconnect);
+    }
+
+    @Override
+    protected boolean isConnected() {
+        return !closed;
+    }
+
+    @Override
+    public void shutdown() {
+        loop.execute(this::close);
+    }
+
+    // Lê o que chegou no canal e despacha cada mensagem completa (chamado pelo event loop).
+    void onReadable() {
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            Log.info(Log.Category.NET, "Cliente desconectado: " + getPlayerName() + " (" + channel.socket().getInetAddress() + ")");
+            disconnect();
+            return;
+        }
+        if (read > 0) touch();
+
+        readBuffer.flip();
+        if (isBinary()) readFrames();
+        else readLines();
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining() && !closed) {
+            Log.warn(Log.Category.NET, "Mensagem maior que " + BUFFER_SIZE + " bytes de " + getPlayerName() + ". Desconectando.");
+            disconnect();
+        }
+    }
+
+    // Despacha cada linha completa do buffer; a linha incompleta fica para a próxima leitura.
+    private void readLines() {
+        int lineStart = readBuffer.position();
+        for (int i = lineStart; i < readBuffer.limit() && !closed; i++) {
+            if (readBuffer.get(i) != '\n') continue;
+            int end = i;
+            if (end > lineStart && readBuffer.get(end - 1) == '\r') end--;
+            int length = end - lineStart;
+            // Uma única cópia, do buffer direto para o array que a sessão recebe.
+            byte[] line = new byte[length];
+            readBuffer.get(lineStart, line, 0, length);
+            lineStart = i + 1;
+            readBuffer.position(lineStart);
+            if (!named) {
+                onName(new String(line, StandardCharsets.UTF_8));
+            } else if (Arrays.equals(line, PONG_LINE)) {
+                pongReceived(); // Só prova que o cliente está vivo.
+            } else {
+                // Linhas de jogo vão em bytes para o parser da sessão, sem criar uma String.
+                GameSession session = getGameSession();
+                if (session != null) session.processLine(line, 0, length, this);
+            }
+            if (isBinary()) {
+                // Negociou o binário: o resto do buffer já são quadros.
+                readFrames();
+                return;
+            }
+        }
+        readBuffer.position(lineStart);
+    }
+
+    // Despacha cada quadro completo (2 bytes de tamanho + opcode + dados).
+    private void readFrames() {
+        while (readBuffer.remaining() >= 2 && !closed) {
+            int start = readBuffer.position();
+            int length = BinaryProtocol.length(readBuffer.get(start), readBuffer.get(start + 1));
+            if (length == 0 || length > BUFFER_SIZE - 2) {
+                Log.warn(Log.Category.NET, "Quadro inválido de " + getPlayerName() + ". Desconectando.");
+                disconnect();
+                return;
+            }
+            if (readBuffer.remaining() < 2 + length) return; // Quadro incompleto.
+            byte[] frame = new byte[length];
+            readBuffer.get(start + 2, frame, 0, length);
+            readBuffer.position(start + 2 + length);
+            GameSession session = getGameSession();
+            if (session != null) session.processFrame(frame, 0, length, this);
+        }
+    }
+
+    // A primeira linha precisa ser SET_NAME ou RESUME (com ou sem _BINARY), como no handshake do modo bloqueante.
+    private void onName(String line) {
+        if (handshakeTimeout != null) handshakeTimeout.cancel();
+        String name = parseName(line);
+        if (name == null) {
+            Log.warn(Log.Category.NET, "Erro: Primeira mensagem do cliente não foi SET_NAME. Desconectando.");
+            close();
+            return;
+        }
+        if (requestsBinary(line)) {
+            // Cliente novo: confirma o protocolo binário antes de qualquer outra mensagem.
+            writeLine(BinaryProtocol.BINARY_ACK);
+            setBinary(true);
+        }
+        named = true;
+        setPlayerName(name);
+        Log.info(Log.Category.NET, "SERVER: Nome do jogador definido como: " + getPlayerName());
+        HalmaServer.admitPlayer(this, parseResumeToken(line));
+        startHeartbeat();
+    }
+
+    // Fecha a conexão se o SET_NAME não chegou no prazo (executado no event loop).
+    private void expireHandshake() {
+        if (named || closed) return;
+        Log.warn(Log.Category.NET, "Cliente não enviou SET_NAME em " + HalmaServer.getHandshakeTimeoutMillis() + " ms. Desconectando: " + channel.socket().getInetAddress());
+        close();
+    }
+
+    // Escreve a fila de saída com escritas gather, sem copiar as mensagens (chamado pelo event loop).
+    void writePending() {
+        flushScheduled.set(false);
+        if (closed) return;
+        ByteBuffer message;
+        while ((message = getOutbound().poll()) != null) {
+            if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pendingCount * 2);
+            pending[pendingCount++] = message;
+        }
+        try {
+            while (pendingCount > 0) {
+                long written = channel.write(pending, 0, pendingCount);
+                // Descarta as mensagens já escritas por inteiro e libera o espaço delas na fila de saída.
+                int done = 0;
+                int released = 0;
+                while (done < pendingCount && !pending[done].hasRemaining()) released += pending[done++].limit();
+                getOutbound().release(released);
+                if (done > 0) {
+                    System.arraycopy(pending, done, pending, 0, pendingCount - done);
+                    Arrays.fill(pending, pendingCount - done, pendingCount, null);
+                    pendingCount -= done;
+                }
+                if (pendingCount > 0 && written == 0) {
+                    // O socket está cheio: espera o OP_WRITE para continuar.
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            Log.info(Log.Category.NET, "Cliente desconectado: " + getPlayerName() + " (" + e.getMessage() + ")");
+            disconnect();
+        }
+    }
+
+    // Fecha a conexão e avisa a sessão, como o ClientHandler faz quando a leitura falha.
+    // A ordem importa: fechada antes de sair da fila, uma sessão criada no meio do caminho a vê fechada no WELCOME.
+    private void disconnect() {
+        close();
+        leaveWaitingQueue();
+        GameSession session = getGameSession();
+        if (session != null) session.handleDisconnect(this);
+    }
+
+    void close() {
+        if (closed) return;
+        closed = true;
+        getOutbound().close();
+        Arrays.fill(pending, null);
+        pendingCount = 0;
+        if (key != null) key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.warn(Log.Category.NET, "Erro durante o desligamento do cliente: " + e.getMessage());
+        }
+    }
+}
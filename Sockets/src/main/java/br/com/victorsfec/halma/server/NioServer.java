@@ -0,0 +1,116 @@
+package br.com.victorsfec.halma.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Modo não bloqueante do servidor: a thread principal só aceita conexões e as distribui
+ * entre poucos event loops, cada um com seu Selector. Os event loops fazem o handshake (SET_NAME, com prazo),
+ * leem as linhas dos clientes e as despacham para a GameSession, sem uma thread por cliente.
+ */
+public class NioServer {
+    private final int port;
+    private final EventLoop[] loops;
+
+    public NioServer(int port, int eventLoops) throws IOException {
+        this.port = port;
+        this.loops = new EventLoop[eventLoops];
+        for (int i = 0; i < eventLoops; i++) {
+            loops[i] = new EventLoop();
+            Thread thread = new Thread(loops[i], "halma-nio-" + i);
+            loops[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    // Aceita conexões para sempre, distribuindo-as entre os event loops em rodízio.
+    public void run() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port), HalmaServer.ACCEPT_BACKLOG);
+            int next = 0;
+            while (true) {
+                SocketChannel channel = server.accept();
+                Log.info(Log.Category.NET, "Novo cliente conectado: " + channel.socket().getInetAddress());
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+        }
+    }
+
+    // Um event loop: seleciona os canais prontos e executa as tarefas enviadas por outras threads.
+    static final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Queue<NioClientHandler> flushes = new ConcurrentLinkedQueue<>();
+        private Thread thread;
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        // Executa uma tarefa na thread do event loop.
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != thread) selector.wakeup();
+        }
+
+        // Agenda a escrita da fila de saída de um cliente; na própria thread ela ocorre no fim da rodada.
+        void requestFlush(NioClientHandler handler) {
+            flushes.add(handler);
+            if (Thread.currentThread() != thread) selector.wakeup();
+        }
+
+        private void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    channel.configureBlocking(false);
+                    NioClientHandler handler = new NioClientHandler(channel, this);
+                    handler.setKey(channel.register(selector, SelectionKey.OP_READ, handler));
+                } catch (IOException e) {
+                    Log.warn(Log.Category.NET, "Erro ao registrar o cliente. Desconectando. " + e.getMessage());
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                        // O canal já está sendo descartado.
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioClientHandler handler = (NioClientHandler) key.attachment();
+                        if (key.isValid() && key.isReadable()) handler.onReadable();
+                        if (key.isValid() && key.isWritable()) handler.writePending();
+                    }
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) task.run();
+                    // As respostas geradas nesta rodada são escritas juntas, depois de todas as leituras.
+                    NioClientHandler handler;
+                    while ((handler = flushes.poll()) != null) handler.writePending();
+                } catch (IOException e) {
+                    Log.error(Log.Category.SERVER, "Erro no event loop: " + e.getMessage());
+                } catch (RuntimeException e) {
+                    // Um erro ao processar um cliente não pode derrubar os outros do mesmo loop.
+                    // Vai para o log assíncrono (com o ponto de origem), sem escrever no stderr dentro do loop.
+                    StackTraceElement[] trace = e.getStackTrace();
+                    Log.error(Log.Category.SERVER, "Erro no event loop: " + e + (trace.length > 0 ? " em " + trace[0] : ""));
+                }
+            }
+        }
+    }
+}
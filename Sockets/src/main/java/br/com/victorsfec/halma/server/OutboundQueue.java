@@ -0,0 +1,243 @@
+package br.com.victorsfec.halma.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fila de saída limitada de uma conexão.
+ *
+ * A sessão só coloca as mensagens aqui; quem escreve no socket é a thread de escrita da conexão
+ * (modo bloqueante) ou o event loop (modo NIO). Os bytes contam da entrada na fila até serem escritos,
+ * então um cliente que parou de ler enche a fila em vez de travar a sessão. A fila está cheia quando os
+ * bytes de lotes anteriores (já liberados com flush) ainda não escritos ocupam a capacidade; as mensagens
+ * do lote atual não contam, para que uma resposta grande (as estatísticas com um chat longo) não derrube
+ * um cliente que está lendo. Quando a fila enche, a política (--slow-client) decide o que fazer:
+ *   coalesce   - placar e turno substituem a versão anterior ainda na fila; chat é descartado; o resto desconecta.
+ *   drop-chat  - chat é descartado; qualquer outra mensagem desconecta.
+ *   disconnect - qualquer mensagem que não caiba desconecta o cliente.
+ *
+ * O lock protege só a fila (nunca é mantido durante E/S).
+ */
+final class OutboundQueue {
+    // Tipo de cada mensagem, para a política decidir o que pode ser combinado ou descartado.
+    enum Kind { MESSAGE, SCORE, TURN, CHAT }
+
+    enum Policy { COALESCE, DROP_CHAT, DISCONNECT }
+
+    private static volatile Policy policy = Policy.COALESCE;
+    private static volatile int capacityBytes = 64 * 1024;
+
+    // Métricas de todas as conexões.
+    private static final LongAdder queuedBytesTotal = new LongAdder();
+    private static final AtomicLong highWaterMarkTotal = new AtomicLong();
+    private static final LongAdder coalescedTotal = new LongAdder();
+    private static final LongAdder droppedChatTotal = new LongAdder();
+    private static final LongAdder slowDisconnectsTotal = new LongAdder();
+
+    private static final class Entry {
+        final ByteBuffer data;
+        final Kind kind;
+
+        Entry(ByteBuffer data, Kind kind) {
+            this.data = data;
+            this.kind = kind;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private int usedBytes;     // Bytes na fila mais os já retirados e ainda não escritos.
+    private int batchBytes;    // Parte de usedBytes que entrou depois do último flush.
+    private int highWaterMark; // Maior ocupação desta conexão.
+    private boolean flushPending = false;
+    private boolean closed = false;
+
+    /**
+     * Define a política e a capacidade de todas as filas.
+     * @param policyName coalesce, drop-chat ou disconnect.
+     */
+    static void configure(String policyName, int capacity) {
+        try {
+            policy = Policy.valueOf(policyName.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Política de cliente lento desconhecida: " + policyName + " (use coalesce, drop-chat ou disconnect)");
+        }
+        if (capacity <= 0) throw new IllegalArgumentException("A fila de saída precisa ter capacidade positiva: " + capacity);
+        capacityBytes = capacity;
+    }
+
+    /**
+     * Coloca uma mensagem na fila, aplicando a política se ela estiver cheia.
+     * @return false se o cliente deve ser desconectado; a fila é fechada e as próximas mensagens são ignoradas.
+     */
+    boolean offer(ByteBuffer data, Kind kind) {
+        int size = data.remaining();
+        lock.lock();
+        try {
+            if (closed) return true;
+            if (isFull()) {
+                Policy current = policy;
+                if (current == Policy.DISCONNECT) return reject();
+                if (kind == Kind.CHAT) {
+                    droppedChatTotal.increment();
+                    return true;
+                }
+                if (current == Policy.DROP_CHAT || (kind != Kind.SCORE && kind != Kind.TURN)) return reject();
+                // Só a última versão do placar e do turno importa: a anterior sai e a nova vai para o fim.
+                removeLast(kind);
+                if (isFull()) return reject();
+            }
+            entries.addLast(new Entry(data, kind));
+            addUsed(size);
+            batchBytes += size;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Retira a próxima mensagem para escrita; os bytes continuam contados até release().
+    ByteBuffer poll() {
+        lock.lock();
+        try {
+            Entry entry = entries.pollFirst();
+            return entry == null ? null : entry.data;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Libera os bytes já escritos no socket.
+    void release(int bytes) {
+        if (bytes == 0) return;
+        lock.lock();
+        try {
+            if (closed) return; // close() já descontou tudo.
+            addUsed(-bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Fecha o lote atual e acorda a thread de escrita (modo bloqueante) para enviar o que está na fila.
+    void requestFlush() {
+        lock.lock();
+        try {
+            batchBytes = 0;
+            flushPending = true;
+            flushRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera um flush com mensagens na fila (thread de escrita do modo bloqueante).
+     * @return false se a fila foi fechada.
+     */
+    boolean awaitFlush() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed && (!flushPending || entries.isEmpty())) flushRequested.await();
+            flushPending = false;
+            return !closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        lock.lock();
+        try {
+            return entries.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Descarta a fila e acorda a thread de escrita.
+    void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            entries.clear();
+            addUsed(-usedBytes);
+            flushRequested.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getHighWaterMark() {
+        lock.lock();
+        try {
+            return highWaterMark;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static int getCapacityBytes() { return capacityBytes; }
+    static long getQueuedBytesTotal() { return queuedBytesTotal.sum(); }
+    static long getHighWaterMarkTotal() { return highWaterMarkTotal.get(); }
+    static long getCoalescedTotal() { return coalescedTotal.sum(); }
+    static long getDroppedChatTotal() { return droppedChatTotal.sum(); }
+    static long getSlowDisconnectsTotal() { return slowDisconnectsTotal.sum(); }
+
+    // Resumo das métricas para o log.
+    static String describe() {
+        return "Filas de saída: " + getQueuedBytesTotal() + " bytes em uso (pico por conexão " + getHighWaterMarkTotal()
+                + " de " + capacityBytes + "), " + getCoalescedTotal() + " atualizações combinadas, "
+                + getDroppedChatTotal() + " chats descartados, " + getSlowDisconnectsTotal() + " desconexões por lentidão.";
+    }
+
+    // Chamados com o lock.
+    private boolean isFull() {
+        return usedBytes - batchBytes >= capacityBytes;
+    }
+
+    private boolean reject() {
+        slowDisconnectsTotal.increment();
+        close();
+        return false;
+    }
+
+    private void removeLast(Kind kind) {
+        Iterator<Entry> iterator = entries.descendingIterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.kind == kind) {
+                iterator.remove();
+                addUsed(-entry.data.remaining());
+                coalescedTotal.increment();
+                return;
+            }
+        }
+    }
+
+    private void addUsed(int bytes) {
+        usedBytes += bytes;
+        batchBytes = Math.min(batchBytes, usedBytes); // A thread de escrita pode já ter enviado parte do lote atual.
+        queuedBytesTotal.add(bytes);
+        if (usedBytes > highWaterMark) {
+            highWaterMark = usedBytes;
+            highWaterMarkTotal.accumulateAndGet(usedBytes, Math::max);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.victorsfec.halma.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rating Elo de cada nome de jogador, mantido em memória enquanto o servidor roda.
+ * Usado pelo Matchmaker para parear jogadores de nível parecido.
+ */
+public final class Ratings {
+    // Rating de quem ainda não jogou.
+    public static final int INITIAL = 1_500;
+    // Fator K do Elo: quanto uma partida pode mover o rating.
+    private static final int K_FACTOR = 32;
+
+    private static final Map<String, Integer> ratings = new ConcurrentHashMap<>();
+
+    private Ratings() {
+    }
+
+    public static int get(String playerName) {
+        return ratings.getOrDefault(playerName, INITIAL);
+    }
+
+    // Atualiza os dois ratings depois de uma partida (chamado uma vez por partida, fora do caminho das mensagens).
+    public static synchronized void recordWin(String winnerName, String loserName) {
+        int winner = get(winnerName);
+        int loser = get(loserName);
+        double expected = 1.0 / (1.0 + Math.pow(10, (loser - winner) / 400.0));
+        int change = (int) Math.round(K_FACTOR * (1.0 - expected));
+        ratings.put(winnerName, winner + change);
+        ratings.put(loserName, Math.max(0, loser - change));
+    }
+}
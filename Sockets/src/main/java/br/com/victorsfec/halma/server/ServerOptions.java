@@ -0,0 +1,146 @@
+package br.com.victorsfec.halma.server;
+
+/**
+ * Opções do servidor lidas da linha de comando no formato --nome=valor.
+ * Opções ausentes mantêm o valor padrão.
+ */
+public class ServerOptions {
+    // Porta do servidor; 0 significa perguntar pela janela de configuração.
+    int port = 0;
+    // Tempo que um jogador espera sozinho antes de ser pareado com o bot (negativo desativa o bot).
+    long botWaitMillis = 10_000;
+    // Tempo de busca do bot por jogada.
+    long botThinkMillis = 1_000;
+    // Threads do executor do bot, separadas das threads dos jogadores humanos.
+    int botThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Quantidade máxima de buscas aguardando no executor do bot.
+    int botQueueSize = 64;
+    // Núcleos que a busca de um único bot pode usar (1 = busca sequencial).
+    int botCores = 1;
+    // Tabela de transposição de cada bot: 2^bits entradas de 16 bytes (16 = 1 MB), alocada por partida contra o bot.
+    int botTableBits = 16;
+    // Tamanho do ForkJoinPool compartilhado pelas threads auxiliares da busca paralela.
+    int searchThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Motor do bot: "alphabeta" (busca em profundidade) ou "mcts" (Monte Carlo).
+    String botEngine = "alphabeta";
+    // Modelo de E/S: "blocking" (uma thread por cliente) ou "nio" (poucos event loops com Selector).
+    String io = "blocking";
+    // Threads das conexões e sessões no modo bloqueante: "platform" ou "virtual".
+    String threadMode = "platform";
+    // Threads de plataforma que drenam as caixas de mensagens de todas as sessões (no modo virtual, uma thread virtual por lote).
+    int sessionThreads = Runtime.getRuntime().availableProcessors();
+    // Quantidade de event loops no modo NIO.
+    int eventLoops = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    // Prazo para o cliente enviar SET_NAME depois de conectar (0 ou negativo desativa).
+    long handshakeTimeoutMillis = 5_000;
+    // Intervalo do PING enviado a clientes que não mandaram nada nesse tempo (0 ou negativo desativa o heartbeat e o idleTimeout).
+    long heartbeatIntervalMillis = 10_000;
+    // Tempo sem receber nada (nem PONG) depois do qual a conexão é considerada morta (0 ou negativo desativa).
+    // Só vale para conexões que já responderam um PING ou negociaram o binário: clientes antigos não respondem.
+    long idleTimeoutMillis = 30_000;
+    // Tempo que o lugar de um jogador desconectado fica reservado para ele voltar com o token (0 ou negativo: o oponente vence na hora).
+    long resumeGraceMillis = 30_000;
+    // O que fazer quando a fila de saída de um cliente enche: coalesce, drop-chat ou disconnect.
+    String slowClientPolicy = "coalesce";
+    // Bytes que podem aguardar envio por conexão (incluindo os que o socket ainda não aceitou).
+    int outboundCapacity = 64 * 1024;
+    // Intervalo do registro das métricas das filas de saída (0 ou negativo desativa).
+    long metricsIntervalMillis = 30_000;
+    // Nível mínimo do log (debug liga o rastreio de cada mensagem do protocolo) e categorias exibidas.
+    String logLevel = "info";
+    String logCategories = "all";
+
+    public static ServerOptions parse(String[] args) {
+        ServerOptions options = new ServerOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opção inválida: " + arg + " (use --nome=valor)");
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "port":
+                    options.port = Integer.parseInt(value);
+                    break;
+                case "bot-wait":
+                    options.botWaitMillis = Long.parseLong(value);
+                    break;
+                case "bot-time":
+                    options.botThinkMillis = Long.parseLong(value);
+                    break;
+                case "bot-threads":
+                    options.botThreads = Integer.parseInt(value);
+                    break;
+                case "bot-queue":
+                    options.botQueueSize = Integer.parseInt(value);
+                    break;
+                case "bot-cores":
+                    options.botCores = Integer.parseInt(value);
+                    break;
+                case "bot-table-bits":
+                    options.botTableBits = Integer.parseInt(value);
+                    if (options.botTableBits < 10 || options.botTableBits > 24) {
+                        throw new IllegalArgumentException("--bot-table-bits precisa estar entre 10 e 24: " + value);
+                    }
+                    break;
+                case "search-threads":
+                    options.searchThreads = Integer.parseInt(value);
+                    break;
+                case "bot-engine":
+                    if (!value.equals("alphabeta") && !value.equals("mcts")) {
+                        throw new IllegalArgumentException("Motor desconhecido: " + value + " (use alphabeta ou mcts)");
+                    }
+                    options.botEngine = value;
+                    break;
+                case "io":
+                    if (!value.equals("blocking") && !value.equals("nio")) {
+                        throw new IllegalArgumentException("Modo de E/S desconhecido: " + value + " (use blocking ou nio)");
+                    }
+                    options.io = value;
+                    break;
+                case "thread-mode":
+                    if (!value.equals("platform") && !value.equals("virtual")) {
+                        throw new IllegalArgumentException("Modo de thread desconhecido: " + value + " (use platform ou virtual)");
+                    }
+                    options.threadMode = value;
+                    break;
+                case "session-threads":
+                    options.sessionThreads = Integer.parseInt(value);
+                    break;
+                case "event-loops":
+                    options.eventLoops = Integer.parseInt(value);
+                    break;
+                case "handshake-timeout":
+                    options.handshakeTimeoutMillis = Long.parseLong(value);
+                    break;
+                case "heartbeat-interval":
+                    options.heartbeatIntervalMillis = Long.parseLong(value);
+                    break;
+                case "idle-timeout":
+                    options.idleTimeoutMillis = Long.parseLong(value);
+                    break;
+                case "resume-grace":
+                    options.resumeGraceMillis = Long.parseLong(value);
+                    break;
+                case "slow-client":
+                    options.slowClientPolicy = value;
+                    break;
+                case "outbound-capacity":
+                    options.outboundCapacity = Integer.parseInt(value);
+                    break;
+                case "metrics-interval":
+                    options.metricsIntervalMillis = Long.parseLong(value);
+                    break;
+                case "log-level":
+                    options.logLevel = value;
+                    break;
+                case "log-categories":
+                    options.logCategories = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opção desconhecida: " + name);
+            }
+        }
+        return options;
+    }
+}
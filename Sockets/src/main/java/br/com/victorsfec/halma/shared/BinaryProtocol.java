@@ -0,0 +1,118 @@
+package br.com.victorsfec.halma.shared;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo binário compacto, negociado na conexão e usado no lugar do texto de Protocol.
+ *
+ * Negociação: o cliente envia "SET_NAME_BINARY:nome" como primeira linha e não envia mais nada até a resposta.
+ * Um servidor novo responde com a linha BINARY_ACK e, a partir daí, os dois lados trocam só quadros binários.
+ * Um servidor antigo trata a linha como um SET_NAME comum (o prefixo é o mesmo) e segue em texto;
+ * o cliente percebe isso porque a primeira linha recebida não é BINARY_ACK.
+ *
+ * Quadro: 2 bytes de tamanho (big-endian, contando o opcode), 1 byte de opcode e os dados.
+ * Casas são um único byte 0..99 (linha * 10 + coluna) e a lista de movimentos válidos é uma máscara de 100 bits.
+ * Mensagens raras ou de tamanho livre (chat, estatísticas, nomes) vão em um quadro TEXT com a linha do protocolo de texto.
+ */
+public final class BinaryProtocol {
+    public static final String SET_NAME_BINARY = "SET_NAME_BINARY";
+    public static final String RESUME_BINARY = "RESUME_BINARY"; // Como Protocol.RESUME, pedindo também o protocolo binário.
+    public static final String BINARY_ACK = "PROTOCOL:BINARY_V1";
+
+    // Tamanho máximo de um quadro (opcode + dados).
+    public static final int MAX_FRAME = 0xFFFF;
+    // Bytes da máscara de 100 bits de VALID_MOVES_MASK.
+    public static final int MASK_BYTES = 13;
+
+    // Linha do protocolo de texto em UTF-8 (nos dois sentidos).
+    public static final byte TEXT = 0;
+
+    // Cliente para servidor.
+    public static final byte MOVE = 1;             // origem, destino
+    public static final byte MOVE_PATH = 2;        // origem seguida de cada pouso
+    public static final byte GET_VALID_MOVES = 3;  // casa
+    public static final byte GET_JUMP_PATHS = 4;   // casa
+    public static final byte END_CHAIN_JUMP = 5;
+    public static final byte FORFEIT = 6;
+
+    // Servidor para cliente.
+    public static final byte VALID_MOVE = 16;        // origem, destino
+    public static final byte JUMP_MOVE = 17;         // origem, destino
+    public static final byte OPPONENT_MOVED = 18;    // origem, destino
+    public static final byte SET_TURN = 19;          // 1 = sua vez, 0 = vez do oponente
+    public static final byte UPDATE_SCORE = 20;      // jogadas do jogador 1 e do jogador 2 (2 bytes cada)
+    public static final byte VALID_MOVES_MASK = 21;  // máscara de 100 bits (bit i = casa i)
+    public static final byte CHAIN_JUMP_OFFER = 22;  // casa
+
+    private BinaryProtocol() {
+    }
+
+    // Quadro só com o opcode.
+    public static byte[] frame(byte opcode) {
+        return new byte[] { 0, 1, opcode };
+    }
+
+    // Quadro com uma casa.
+    public static byte[] square(byte opcode, int square) {
+        return new byte[] { 0, 2, opcode, (byte) square };
+    }
+
+    // Quadro de movimento (origem e destino).
+    public static byte[] move(byte opcode, int from, int to) {
+        return new byte[] { 0, 3, opcode, (byte) from, (byte) to };
+    }
+
+    public static byte[] turn(boolean yourTurn) {
+        return new byte[] { 0, 2, SET_TURN, (byte) (yourTurn ? 1 : 0) };
+    }
+
+    public static byte[] score(int player1Moves, int player2Moves) {
+        return new byte[] { 0, 5, UPDATE_SCORE, (byte) (player1Moves >>> 8), (byte) player1Moves, (byte) (player2Moves >>> 8), (byte) player2Moves };
+    }
+
+    // Quadro com uma sequência de casas (MOVE_PATH).
+    public static byte[] squares(byte opcode, int[] squares, int count) {
+        byte[] frame = header(opcode, count);
+        for (int i = 0; i < count; i++) frame[3 + i] = (byte) squares[i];
+        return frame;
+    }
+
+    // Quadro VALID_MOVES_MASK com as casas marcadas.
+    public static byte[] validMoves(int[] squares, int count) {
+        byte[] frame = header(VALID_MOVES_MASK, MASK_BYTES);
+        for (int i = 0; i < count; i++) frame[3 + (squares[i] >>> 3)] |= (byte) (1 << (squares[i] & 7));
+        return frame;
+    }
+
+    // Verifica se a casa está marcada na máscara que começa em "offset".
+    public static boolean maskContains(byte[] data, int offset, int square) {
+        return (data[offset + (square >>> 3)] & (1 << (square & 7))) != 0;
+    }
+
+    public static byte[] text(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_FRAME - 1);
+        byte[] frame = header(TEXT, length);
+        System.arraycopy(bytes, 0, frame, 3, length);
+        return frame;
+    }
+
+    // Lê os 2 bytes de tamanho no início de um quadro.
+    public static int length(byte high, byte low) {
+        return ((high & 0xFF) << 8) | (low & 0xFF);
+    }
+
+    // Uma casa válida (0..99) vinda da rede; -1 se o byte estiver fora do tabuleiro.
+    public static int squareAt(byte[] data, int index) {
+        int square = data[index] & 0xFF;
+        return square < 100 ? square : -1;
+    }
+
+    private static byte[] header(byte opcode, int payloadLength) {
+        byte[] frame = new byte[3 + payloadLength];
+        frame[0] = (byte) ((payloadLength + 1) >>> 8);
+        frame[1] = (byte) (payloadLength + 1);
+        frame[2] = opcode;
+        return frame;
+    }
+}
@@ -11,10 +11,15 @@ public class Protocol {
     public static final String END_CHAIN_JUMP = "END_CHAIN_JUMP"; // Informa que o jogador não quer continuar um salto em cadeia.
     public static final String SET_NAME = "SET_NAME"; // Define o nome do jogador no servidor.
     public static final String GET_VALID_MOVES = "GET_VALID_MOVES"; // Solicita os movimentos válidos para uma peça.
+    public static final String MOVE_PATH = "MOVE_PATH"; // Envia um salto em cadeia completo: linha:coluna da origem seguidos de cada pouso.
+    public static final String GET_JUMP_PATHS = "GET_JUMP_PATHS"; // Solicita todas as casas alcançáveis por saltos em cadeia, com os caminhos.
+    public static final String PONG = "PONG"; // Resposta ao PING do servidor.
+    public static final String RESUME = "RESUME"; // No lugar de SET_NAME depois de uma queda: RESUME:token:nome, para voltar à partida.
 
     // Comandos do Servidor para o Cliente
     public static final String GAME_OVER_STATS = "GAME_OVER_STATS"; // Envia as estatísticas finais do jogo.
-    public static final String WELCOME = "WELCOME"; // Mensagem de boas-vindas, atribuindo o ID do jogador.
+    public static final String WELCOME = "WELCOME"; // Boas-vindas: ID:nome.
+    public static final String RESUME_TOKEN = "RESUME_TOKEN"; // Token para voltar à partida com RESUME (só se o servidor reserva lugares).
     public static final String GAME_START = "GAME_START";  // Informa que a partida vai começar.
     public static final String OPPONENT_FOUND = "OPPONENT_FOUND"; // Informa o nome do oponente encontrado.
     public static final String VALID_MOVE = "VALID_MOVE"; // Confirma que um movimento foi válido.
@@ -30,4 +35,7 @@ public class Protocol {
     public static final String ERROR = "ERROR"; // Envia uma mensagem de erro.
     public static final String VALID_MOVES_LIST = "VALID_MOVES_LIST"; // Envia a lista de movimentos válidos solicitada.
     public static final String UPDATE_SCORE = "UPDATE_SCORE"; // Envia o placar atualizado de movimentos.
+    public static final String GAME_STATE = "GAME_STATE"; // Estado completo ao retomar: turno:placar1:placar2:linha:coluna do salto em cadeia (-1 se não houver):dono de cada casa.
+    public static final String PING = "PING"; // Heartbeat: o cliente responde PONG; sem resposta, a conexão é dada como morta.
+    public static final String JUMP_PATHS_LIST = "JUMP_PATHS_LIST"; // Envia os caminhos de salto em cadeia (pousos "linha,coluna" separados por '>', caminhos por ';').
 }
\ No newline at end of file